@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.Writer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shared benchmark utilities.
+ */
+final class Benchmarks {
+
+    // Loggers are only weakly referenced by the log manager
+    private static final Logger PROBE_LOGGER = Logger.getLogger(Benchmarks.class.getPackage().getName());
+
+    private Benchmarks() {
+    }
+
+    /**
+     * The info messages logged for each load would distort the results.
+     */
+    static void quietLogging() {
+        PROBE_LOGGER.setLevel(Level.WARNING);
+    }
+
+    /**
+     *
+     * @return a writer which discards all the data
+     */
+    static Writer nullWriter() {
+        return new Writer() {
+
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+            }
+
+            @Override
+            public void write(String str) {
+            }
+
+            @Override
+            public void write(int c) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.weld.probe.Resource.Representation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Queries against loaded export data: detail lookups by id, each filter of each data type, paging and serialization of whole responses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportQueryBenchmark {
+
+    static final int PAGE_SIZE = 50;
+
+    @Param({ "10000" })
+    public int beans;
+
+    @Param({ "1000" })
+    public int observers;
+
+    @Param({ "50000" })
+    public int events;
+
+    @Param({ "5000" })
+    public int invocations;
+
+    @Param({ "5" })
+    public int invocationDepth;
+
+    private ExportFileJsonDataProvider provider;
+
+    private String[] beanIds;
+
+    private String[] observerIds;
+
+    private String[] invocationIds;
+
+    private Set<String> batchIds;
+
+    private int lastBeansPage;
+
+    private int lastInvocationsPage;
+
+    private int idx;
+
+    @Setup
+    public void setup() throws IOException {
+        Benchmarks.quietLogging();
+        provider = new ExportFileJsonDataProvider(new SyntheticExport(beans, observers, events, invocations, invocationDepth).writeTemp());
+        // Random ids so that the lookups do not benefit from the order of the data
+        Random random = new Random(7);
+        beanIds = new String[1024];
+        observerIds = new String[1024];
+        invocationIds = new String[1024];
+        for (int i = 0; i < beanIds.length; i++) {
+            beanIds[i] = SyntheticExport.beanId(random.nextInt(beans));
+            observerIds[i] = SyntheticExport.observerId(random.nextInt(observers));
+            invocationIds[i] = String.valueOf(random.nextInt(invocations));
+        }
+        batchIds = new LinkedHashSet<>();
+        while (batchIds.size() < PAGE_SIZE) {
+            batchIds.add(SyntheticExport.beanId(random.nextInt(beans)));
+        }
+        lastBeansPage = (beans + PAGE_SIZE - 1) / PAGE_SIZE;
+        lastInvocationsPage = (invocations + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    // Id lookups
+
+    @Benchmark
+    public String beanDetail() {
+        return provider.receiveBean(beanIds[next()], true, true);
+    }
+
+    @Benchmark
+    public String beanDetailDirectDependencies() {
+        return provider.receiveBean(beanIds[next()], false, false);
+    }
+
+    @Benchmark
+    public String observerDetail() {
+        return provider.receiveObserver(observerIds[next()]);
+    }
+
+    @Benchmark
+    public String invocationDetail() {
+        return provider.receiveInvocation(invocationIds[next()]);
+    }
+
+    @Benchmark
+    public Object beansBatch() throws IOException {
+        provider.writeDetails(DetailBatch.Type.BEANS, batchIds, Benchmarks.nullWriter());
+        return batchIds;
+    }
+
+    // Filters
+
+    @Benchmark
+    public Object filterBeans(BeanFilter filter) {
+        return provider.findBeans(filter.filter);
+    }
+
+    @Benchmark
+    public Object filterObservers(ObserverFilter filter) {
+        return provider.findObservers(filter.filter);
+    }
+
+    @Benchmark
+    public Object filterEvents(EventFilter filter) {
+        return provider.findEvents(filter.filter);
+    }
+
+    @Benchmark
+    public Object filterInvocations(InvocationFilter filter) {
+        return provider.findInvocations(filter.filter);
+    }
+
+    // Paging
+
+    @Benchmark
+    public String beansFirstPage() {
+        return provider.receiveBeans(1, PAGE_SIZE, null, null);
+    }
+
+    @Benchmark
+    public String beansLastPage() {
+        return provider.receiveBeans(lastBeansPage, PAGE_SIZE, null, null);
+    }
+
+    @Benchmark
+    public String beansFilteredPage() {
+        return provider.receiveBeans(1, PAGE_SIZE, "kind:PRODUCER_METHOD", null);
+    }
+
+    @Benchmark
+    public String eventsFirstPage() {
+        return provider.receiveEvents(1, PAGE_SIZE, null);
+    }
+
+    @Benchmark
+    public String invocationsFirstPage() {
+        return provider.receiveInvocations(1, PAGE_SIZE, null, null);
+    }
+
+    @Benchmark
+    public String invocationsLastPage() {
+        return provider.receiveInvocations(lastInvocationsPage, PAGE_SIZE, null, null);
+    }
+
+    // Serialization of whole responses
+
+    @Benchmark
+    public String serializeAllBeans() {
+        return provider.receiveBeans(1, 0, null, Representation.FULL.toString());
+    }
+
+    @Benchmark
+    public String serializeAllObservers() {
+        return provider.receiveObservers(1, 0, null, Representation.FULL.toString());
+    }
+
+    @Benchmark
+    public String serializeAllEvents() {
+        return provider.receiveEvents(1, 0, null);
+    }
+
+    @Benchmark
+    public String serializeAllInvocations() {
+        return provider.receiveInvocations(1, 0, null, Representation.FULL.toString());
+    }
+
+    private int next() {
+        return idx++ & (beanIds.length - 1);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BeanFilter {
+
+        @Param({ "kind:PRODUCER_METHOD", "beanClass:Service42", "beanType:com.acme.api.Service7", "qualifier:@Secure", "scope:@RequestScoped",
+                "bda:bda2", "isAlternative:true", "stereotypes:@Model", "unused:true" })
+        public String filter;
+
+    }
+
+    @State(Scope.Benchmark)
+    public static class ObserverFilter {
+
+        @Param({ "kind:SESSION", "beanClass:Service42", "observedType:Event7", "qualifier:@Any", "reception:IF_EXISTS", "txPhase:AFTER_SUCCESS",
+                "bda:bda2" })
+        public String filter;
+
+    }
+
+    @State(Scope.Benchmark)
+    public static class EventFilter {
+
+        @Param({ "kind:CONTAINER", "type:Event7", "qualifiers:@Secure", "eventInfo:@4242" })
+        public String filter;
+
+    }
+
+    @State(Scope.Benchmark)
+    public static class InvocationFilter {
+
+        @Param({ "beanClass:Service42", "methodName:validate", "search:Service42", "description:compute", "minTime:100" })
+        public String filter;
+
+    }
+
+}
@@ -0,0 +1,498 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static java.lang.System.err;
+import static java.lang.System.exit;
+import static java.lang.System.out;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+
+/**
+ * An end-to-end load test of the adapter in JMX mode. Simulated containers are registered in an in-process MBeanServer exposed by a local JMX
+ * connector, the adapter connects to the first container and the HTTP resources are requested by concurrent clients. The clients request a fixed
+ * mix of resources similar to the HTML client.
+ * <p>
+ * Reports the throughput, the latency percentiles and the number of remote calls made by the adapter, i.e. the load put on the monitored JVM. The
+ * adapter system properties apply, e.g. <code>-Dorg.jboss.weld.probe.prefetch=true</code>.
+ *
+ * <pre>
+ * java -cp benchmarks.jar org.jboss.weld.probe.LoadTest --clients 32 --latency 50 --beans 5000
+ * </pre>
+ */
+public class LoadTest {
+
+    static final String OPTION_CLIENTS = "--clients";
+
+    static final String OPTION_DURATION = "--duration";
+
+    static final String OPTION_WARMUP = "--warmup";
+
+    static final String OPTION_LATENCY = "--latency";
+
+    static final String OPTION_CONTAINERS = "--containers";
+
+    static final String OPTION_PORT = "--port";
+
+    static final String OPTION_BEANS = "--beans";
+
+    static final String OPTION_OBSERVERS = "--observers";
+
+    static final String OPTION_EVENTS = "--events";
+
+    static final String OPTION_INVOCATIONS = "--invocations";
+
+    static final String OPTION_INVOCATION_DEPTH = "--invocationDepth";
+
+    static final int PAGE_SIZE = 50;
+
+    private static final String HOST = "127.0.0.1";
+
+    private static final long STARTUP_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final String[] QUANTILE_LABELS = { "p50", "p90", "p99", "p99.9" };
+
+    private final int clients;
+
+    private final int duration;
+
+    private final int warmup;
+
+    private final long latency;
+
+    private final int containers;
+
+    private final int port;
+
+    private final int beans;
+
+    private final int observers;
+
+    private final int events;
+
+    private final int invocations;
+
+    private final int invocationDepth;
+
+    private volatile boolean measuring;
+
+    private volatile boolean stopped;
+
+    LoadTest(int clients, int duration, int warmup, long latency, int containers, int port, int beans, int observers, int events, int invocations,
+            int invocationDepth) {
+        this.clients = clients;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.latency = latency;
+        this.containers = containers;
+        this.port = port;
+        this.beans = beans;
+        this.observers = observers;
+        this.events = events;
+        this.invocations = invocations;
+        this.invocationDepth = invocationDepth;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test;
+        try {
+            test = from(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(usage());
+            exit(2);
+            return;
+        }
+        test.run();
+        // RMI and Undertow threads would keep the JVM running
+        exit(0);
+    }
+
+    /**
+     *
+     * @param args
+     * @return the load test
+     * @throws IllegalArgumentException If the arguments are not valid
+     */
+    static LoadTest from(String[] args) {
+        Map<String, Integer> options = new HashMap<>();
+        options.put(OPTION_CLIENTS, 16);
+        options.put(OPTION_DURATION, 30);
+        options.put(OPTION_WARMUP, 10);
+        options.put(OPTION_LATENCY, 20);
+        options.put(OPTION_CONTAINERS, 1);
+        options.put(OPTION_PORT, 8181);
+        options.put(OPTION_BEANS, 2000);
+        options.put(OPTION_OBSERVERS, 200);
+        options.put(OPTION_EVENTS, 5000);
+        options.put(OPTION_INVOCATIONS, 1000);
+        options.put(OPTION_INVOCATION_DEPTH, 4);
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!options.containsKey(arg)) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+            if (++i >= args.length) {
+                throw new IllegalArgumentException("No value specified for " + arg);
+            }
+            int value;
+            try {
+                value = Integer.parseInt(args[i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value of " + arg + ": " + args[i]);
+            }
+            if (value < 0 || (value == 0 && !OPTION_LATENCY.equals(arg) && !OPTION_WARMUP.equals(arg))) {
+                throw new IllegalArgumentException("Invalid value of " + arg + ": " + args[i]);
+            }
+            options.put(arg, value);
+        }
+        return new LoadTest(options.get(OPTION_CLIENTS), options.get(OPTION_DURATION), options.get(OPTION_WARMUP), options.get(OPTION_LATENCY),
+                options.get(OPTION_CONTAINERS), options.get(OPTION_PORT), options.get(OPTION_BEANS), options.get(OPTION_OBSERVERS),
+                options.get(OPTION_EVENTS), options.get(OPTION_INVOCATIONS), options.get(OPTION_INVOCATION_DEPTH));
+    }
+
+    static String usage() {
+        StringBuilder usage = new StringBuilder();
+        usage.append("Usage: [--clients <clients>] [--duration <seconds>] [--warmup <seconds>] [--latency <remote call latency in ms>]");
+        usage.append(" [--containers <containers>] [--port <port>]");
+        usage.append(System.lineSeparator());
+        usage.append("The size of the simulated data: [--beans <beans>] [--observers <observers>] [--events <events>] [--invocations <invocations>]");
+        usage.append(" [--invocationDepth <depth>]");
+        return usage.toString();
+    }
+
+    void run() throws Exception {
+        Benchmarks.quietLogging();
+        out.println("Generating data...");
+        ExportFileJsonDataProvider data = new ExportFileJsonDataProvider(
+                new SyntheticExport(beans, observers, events, invocations, invocationDepth).writeTemp());
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        List<SimulatedContainer> simulated = new ArrayList<>();
+        for (int i = 0; i < containers; i++) {
+            SimulatedContainer container = new SimulatedContainer(data, latency);
+            server.registerMBean(new StandardMBean(container, JsonDataProvider.class, true),
+                    new ObjectName(JsonDataProvider.class.getPackage().getName() + ":type=JsonData,context=simulated" + i));
+            simulated.add(container);
+        }
+        // No RMI registry needed - the address contains the serialized stub
+        JMXConnectorServer connector = JMXConnectorServerFactory.newJMXConnectorServer(new JMXServiceURL("service:jmx:rmi://" + HOST), null, server);
+        connector.start();
+        System.setProperty(ProbeClientAdapter.SYSTEM_PROPERTY_JMX_SERVICE_URL, connector.getAddress().toString());
+
+        // The adapter is controlled by the console commands
+        InputStream originalIn = System.in;
+        PipedOutputStream commands = new PipedOutputStream();
+        System.setIn(new PipedInputStream(commands));
+        Thread adapterThread;
+        try {
+            ProbeClientAdapter adapter = new ProbeClientAdapter(null, HOST, port);
+            adapterThread = new Thread(adapter::start, "probe-client-adapter");
+            adapterThread.start();
+        } finally {
+            System.setIn(originalIn);
+        }
+        command(commands, "0");
+        awaitAdapter();
+
+        out.printf("Running %s clients for %s s (warmup %s s), remote call latency %s ms%n", clients, duration, warmup, latency);
+        List<Client> clientList = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client(i);
+            Thread thread = new Thread(client, "load-test-client-" + i);
+            clientList.add(client);
+            threads.add(thread);
+            thread.start();
+        }
+        TimeUnit.SECONDS.sleep(warmup);
+        Map<String, Long> callsBefore = sumCalls(simulated);
+        long charsBefore = sumChars(simulated);
+        long start = System.nanoTime();
+        measuring = true;
+        TimeUnit.SECONDS.sleep(duration);
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        Map<String, Long> callsAfter = sumCalls(simulated);
+        long charsAfter = sumChars(simulated);
+        stopped = true;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        command(commands, "e");
+        adapterThread.join(STARTUP_TIMEOUT);
+        connector.stop();
+
+        Map<String, Long> calls = new HashMap<>();
+        callsAfter.forEach((method, count) -> calls.put(method, count - callsBefore.getOrDefault(method, 0L)));
+        report(clientList, elapsed, calls, charsAfter - charsBefore);
+    }
+
+    private void report(List<Client> clientList, long elapsed, Map<String, Long> calls, long remoteChars) {
+        double seconds = elapsed / 1_000_000_000.0;
+        DurationHistogram total = new DurationHistogram();
+        DurationHistogram[] byRequest = new DurationHistogram[Request.values().length];
+        long errors = 0;
+        long bytes = 0;
+        String firstError = null;
+        for (int i = 0; i < byRequest.length; i++) {
+            byRequest[i] = new DurationHistogram();
+        }
+        for (Client client : clientList) {
+            for (int i = 0; i < byRequest.length; i++) {
+                byRequest[i].add(client.latencies[i]);
+                total.add(client.latencies[i]);
+            }
+            errors += client.errors;
+            bytes += client.bytes;
+            if (firstError == null) {
+                firstError = client.firstError;
+            }
+        }
+        out.println();
+        out.printf("Requests: %s, errors: %s, throughput: %.1f req/s, received: %.1f kB/s%n", total.getCount(), errors, total.getCount() / seconds,
+                bytes / 1024.0 / seconds);
+        if (firstError != null) {
+            out.println("First error: " + firstError);
+        }
+        out.println("Latency [ms]: " + percentiles(total));
+        for (Request request : Request.values()) {
+            DurationHistogram histogram = byRequest[request.ordinal()];
+            out.printf("  %-18s %8s requests, %s%n", request.toString().toLowerCase(), histogram.getCount(), percentiles(histogram));
+        }
+        long totalCalls = calls.values().stream().mapToLong(Long::longValue).sum();
+        out.println();
+        out.printf("Remote calls: %s, %.1f calls/s, %.2f calls per request, returned: %.1f kB/s%n", totalCalls, totalCalls / seconds,
+                total.getCount() > 0 ? (double) totalCalls / total.getCount() : 0.0, remoteChars / 1024.0 / seconds);
+        calls.entrySet().stream().filter(e -> e.getValue() > 0).sorted(Map.Entry.comparingByKey())
+                .forEach(e -> out.printf("  %-22s %8s%n", e.getKey(), e.getValue()));
+    }
+
+    private String percentiles(DurationHistogram histogram) {
+        // The latencies are recorded in microseconds
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < QUANTILES.length; i++) {
+            builder.append(QUANTILE_LABELS[i]);
+            builder.append("=");
+            builder.append(String.format("%.2f", histogram.getValueAtQuantile(QUANTILES[i]) / 1000.0));
+            builder.append(" ");
+        }
+        builder.append("max=");
+        builder.append(String.format("%.2f", histogram.getMax() / 1000.0));
+        return builder.toString();
+    }
+
+    private void awaitAdapter() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url("/deployment").openConnection();
+                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                    drain(connection.getInputStream());
+                    return;
+                }
+            } catch (IOException ignored) {
+                // Not started yet
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        throw new IllegalStateException("The adapter did not start in " + STARTUP_TIMEOUT + " ms");
+    }
+
+    private URL url(String resource) throws IOException {
+        return new URL("http://" + HOST + ":" + port + "/" + ProbeClientAdapter.PROBE_CLIENT_ADAPTER_APP + SimpleProbeFilter.REST_URL_PATTERN_BASE + resource);
+    }
+
+    private int page(Random random, int items) {
+        return 1 + random.nextInt(Math.max(1, (items + PAGE_SIZE - 1) / PAGE_SIZE));
+    }
+
+    private static void command(PipedOutputStream commands, String command) throws IOException {
+        commands.write((command + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        commands.flush();
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        long bytes = 0;
+        try (InputStream stream = in) {
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes += read;
+            }
+        }
+        return bytes;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Long> sumCalls(List<SimulatedContainer> containers) {
+        Map<String, Long> calls = new HashMap<>();
+        for (SimulatedContainer container : containers) {
+            container.getCalls().forEach((method, count) -> calls.merge(method, count, Long::sum));
+        }
+        return calls;
+    }
+
+    private static long sumChars(List<SimulatedContainer> containers) {
+        return containers.stream().mapToLong(SimulatedContainer::getChars).sum();
+    }
+
+    /**
+     * The mix of requests, each request type is chosen with a probability proportional to its weight.
+     */
+    enum Request {
+
+        DEPLOYMENT(2, (test, random) -> "/deployment"),
+        BEANS(15, (test, random) -> "/beans?page=" + test.page(random, test.beans) + "&pageSize=" + PAGE_SIZE),
+        BEANS_FILTERED(5, (test, random) -> "/beans?page=1&pageSize=" + PAGE_SIZE + "&filters="
+                + encode("beanClass:\"Service" + random.nextInt(Math.max(1, test.beans / 2)) + "\"")),
+        BEAN(20, (test, random) -> "/beans/" + SyntheticExport.beanId(random.nextInt(test.beans)) + "?transientDependencies=true&transientDependents=true"),
+        BEANS_BATCH(3, (test, random) -> {
+            StringBuilder ids = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                ids.append(i > 0 ? "," : "").append(SyntheticExport.beanId(random.nextInt(test.beans)));
+            }
+            return "/batch/beans?ids=" + ids;
+        }),
+        OBSERVERS(8, (test, random) -> "/observers?page=" + test.page(random, test.observers) + "&pageSize=" + PAGE_SIZE),
+        OBSERVER(8, (test, random) -> "/observers/" + SyntheticExport.observerId(random.nextInt(test.observers))),
+        INVOCATIONS(10, (test, random) -> "/invocations?page=" + test.page(random, test.invocations) + "&pageSize=" + PAGE_SIZE),
+        INVOCATION(10, (test, random) -> "/invocations/" + random.nextInt(test.invocations)),
+        INVOCATION_HOTSPOTS(2, (test, random) -> "/invocations/hotspots"),
+        EVENTS(10, (test, random) -> "/events?page=" + test.page(random, test.events) + "&pageSize=" + PAGE_SIZE),
+        EVENT_TIMELINE(2, (test, random) -> "/events/timeline"),
+        MONITORING(5, (test, random) -> "/monitoring"),;
+
+        private final int weight;
+
+        private final BiFunction<LoadTest, Random, String> resource;
+
+        private Request(int weight, BiFunction<LoadTest, Random, String> resource) {
+            this.weight = weight;
+            this.resource = resource;
+        }
+
+        static Request next(Random random) {
+            int totalWeight = 0;
+            for (Request request : values()) {
+                totalWeight += request.weight;
+            }
+            int value = random.nextInt(totalWeight);
+            for (Request request : values()) {
+                value -= request.weight;
+                if (value < 0) {
+                    return request;
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+    }
+
+    private class Client implements Runnable {
+
+        private final Random random;
+
+        // Accessed after the client thread terminates
+        private final DurationHistogram[] latencies;
+
+        private long errors;
+
+        private long bytes;
+
+        private String firstError;
+
+        Client(int idx) {
+            this.random = new Random(idx);
+            this.latencies = new DurationHistogram[Request.values().length];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new DurationHistogram();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                Request request = Request.next(random);
+                String resource = request.resource.apply(LoadTest.this, random);
+                long start = System.nanoTime();
+                long received = 0;
+                String error = null;
+                try {
+                    HttpURLConnection connection = (HttpURLConnection) url(resource).openConnection();
+                    int status = connection.getResponseCode();
+                    if (status == HttpURLConnection.HTTP_OK) {
+                        received = drain(connection.getInputStream());
+                    } else {
+                        error = status + " " + resource;
+                        if (connection.getErrorStream() != null) {
+                            received = drain(connection.getErrorStream());
+                        }
+                    }
+                } catch (IOException e) {
+                    error = e + " " + resource;
+                }
+                long time = System.nanoTime() - start;
+                if (measuring) {
+                    latencies[request.ordinal()].record(TimeUnit.NANOSECONDS.toMicros(time));
+                    bytes += received;
+                    if (error != null) {
+                        errors++;
+                        if (firstError == null) {
+                            firstError = error;
+                        }
+                    }
+                }
+            }
+        }
+
+    }
+
+}
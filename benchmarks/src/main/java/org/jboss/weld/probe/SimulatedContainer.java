@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A fake Weld container with Probe JMX enabled. The data are served by an export file provider, i.e. the payload size depends on the size of the
+ * export. Each call is delayed by the configured latency to simulate a busy remote JVM. All the calls and the number of characters returned are
+ * counted.
+ */
+class SimulatedContainer implements JsonDataProvider {
+
+    private final JsonDataProvider data;
+
+    private final long latency;
+
+    private final ConcurrentMap<String, LongAdder> calls;
+
+    private final LongAdder chars;
+
+    /**
+     *
+     * @param data the provider of the data
+     * @param latency the latency of each call in milliseconds
+     */
+    SimulatedContainer(JsonDataProvider data, long latency) {
+        this.data = data;
+        this.latency = latency;
+        this.calls = new ConcurrentHashMap<>();
+        this.chars = new LongAdder();
+    }
+
+    @Override
+    public String receiveDeployment() {
+        return call("receiveDeployment", () -> data.receiveDeployment());
+    }
+
+    @Override
+    public String receiveBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return call("receiveBeans", () -> data.receiveBeans(pageIndex, pageSize, filters, representation));
+    }
+
+    @Override
+    public String receiveBean(String id, boolean transientDependencies, boolean transientDependents) {
+        return call("receiveBean", () -> data.receiveBean(id, transientDependencies, transientDependents));
+    }
+
+    @Override
+    public String receiveBeanInstance(String id) {
+        return call("receiveBeanInstance", () -> data.receiveBeanInstance(id));
+    }
+
+    @Override
+    public String receiveObservers(int pageIndex, int pageSize, String filters, String representation) {
+        return call("receiveObservers", () -> data.receiveObservers(pageIndex, pageSize, filters, representation));
+    }
+
+    @Override
+    public String receiveObserver(String id) {
+        return call("receiveObserver", () -> data.receiveObserver(id));
+    }
+
+    @Override
+    public String receiveContexts() {
+        return call("receiveContexts", () -> data.receiveContexts());
+    }
+
+    @Override
+    public String receiveContext(String id) {
+        return call("receiveContext", () -> data.receiveContext(id));
+    }
+
+    @Override
+    public String receiveInvocations(int pageIndex, int pageSize, String filters, String representation) {
+        return call("receiveInvocations", () -> data.receiveInvocations(pageIndex, pageSize, filters, representation));
+    }
+
+    @Override
+    public String clearInvocations() {
+        return call("clearInvocations", () -> data.clearInvocations());
+    }
+
+    @Override
+    public String receiveInvocation(String id) {
+        return call("receiveInvocation", () -> data.receiveInvocation(id));
+    }
+
+    @Override
+    public String receiveEvents(int pageIndex, int pageSize, String filters) {
+        return call("receiveEvents", () -> data.receiveEvents(pageIndex, pageSize, filters));
+    }
+
+    @Override
+    public String clearEvents() {
+        return call("clearEvents", () -> data.clearEvents());
+    }
+
+    @Override
+    public String receiveMonitoringStats() {
+        return call("receiveMonitoringStats", () -> data.receiveMonitoringStats());
+    }
+
+    @Override
+    public String receiveAvailableBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return call("receiveAvailableBeans", () -> data.receiveAvailableBeans(pageIndex, pageSize, filters, representation));
+    }
+
+    /**
+     *
+     * @return the number of calls per method, sorted by method name
+     */
+    Map<String, Long> getCalls() {
+        Map<String, Long> result = new TreeMap<>();
+        calls.forEach((method, count) -> result.put(method, count.sum()));
+        return result;
+    }
+
+    /**
+     *
+     * @return the total number of characters returned
+     */
+    long getChars() {
+        return chars.sum();
+    }
+
+    private String call(String method, Supplier<String> call) {
+        calls.computeIfAbsent(method, m -> new LongAdder()).increment();
+        if (latency > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        String result = call.get();
+        if (result != null) {
+            chars.add(result.length());
+        }
+        return result;
+    }
+
+}
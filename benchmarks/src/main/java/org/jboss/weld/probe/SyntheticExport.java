@@ -0,0 +1,319 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Generates a synthetic export file with the same structure as the export of the Probe REST API. The data are generated from a fixed seed, i.e. the
+ * same configuration always results in the same export.
+ * <p>
+ * The generator may also be used from the command line, e.g. to inspect the data in the adapter:
+ *
+ * <pre>
+ * java -cp benchmarks.jar org.jboss.weld.probe.SyntheticExport export.zip 10000 1000 50000 5000 6
+ * </pre>
+ */
+class SyntheticExport {
+
+    static final String[] KINDS = { "MANAGED", "MANAGED", "MANAGED", "PRODUCER_METHOD", "PRODUCER_FIELD", "SESSION", "BUILT_IN" };
+
+    static final String[] SCOPES = { "@Dependent", "@ApplicationScoped", "@RequestScoped", "@SessionScoped" };
+
+    static final String[] QUALIFIERS = { "@Default", "@Named", "@Preferred", "@Secure" };
+
+    static final String[] METHODS = { "find", "save", "update", "delete", "process", "validate", "compute", "ping" };
+
+    private static final String BDA_ID = "bda1";
+
+    private static final String ADDITIONAL_BDA_ID = "bda2";
+
+    private static final int MAX_DEPENDENCIES = 4;
+
+    private static final int MAX_CHILDREN = 3;
+
+    private static final long START = 1476000000000L;
+
+    private final int beans;
+
+    private final int observers;
+
+    private final int events;
+
+    private final int invocations;
+
+    private final int invocationDepth;
+
+    private final Random random;
+
+    /**
+     *
+     * @param beans the number of beans
+     * @param observers the number of observer methods
+     * @param events the number of fired events
+     * @param invocations the number of invocation trees
+     * @param invocationDepth the max depth of an invocation tree
+     */
+    SyntheticExport(int beans, int observers, int events, int invocations, int invocationDepth) {
+        this.beans = beans;
+        this.observers = observers;
+        this.events = events;
+        this.invocations = invocations;
+        this.invocationDepth = invocationDepth;
+        this.random = new Random(42);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 6) {
+            System.err.println("Usage: SyntheticExport <file> <beans> <observers> <events> <invocations> <invocationDepth>");
+            System.exit(2);
+        }
+        new SyntheticExport(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+                Integer.parseInt(args[5])).write(new File(args[0]));
+    }
+
+    /**
+     *
+     * @return a new temporary export file which is deleted on exit
+     * @throws IOException
+     */
+    File writeTemp() throws IOException {
+        File file = File.createTempFile("weld-probe-export", ".zip");
+        file.deleteOnExit();
+        write(file);
+        return file;
+    }
+
+    void write(File file) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            entry(zip, "deployment.json", this::writeDeployment);
+            entry(zip, "contexts.json", this::writeContexts);
+            entry(zip, "context-application.json", this::writeApplicationContext);
+            entry(zip, "beans.json", this::writeBeans);
+            entry(zip, "observers.json", this::writeObservers);
+            entry(zip, "fired-events.json", this::writeEvents);
+            entry(zip, "invocation-trees.json", this::writeInvocations);
+        }
+    }
+
+    static String beanId(int idx) {
+        return "bean-" + idx;
+    }
+
+    static String observerId(int idx) {
+        return "observer-" + idx;
+    }
+
+    static String beanClass(int idx) {
+        // Several beans may share the same bean class, e.g. producers
+        return "com.acme.module" + (idx % 20) + ".Service" + (idx / 2);
+    }
+
+    static String eventType(int idx) {
+        return "com.acme.event.Event" + (idx % 40);
+    }
+
+    private void writeDeployment(JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("bdas").beginArray();
+        out.beginObject().name("id").value(BDA_ID).name("bdaId").value("app.war").name("beanDiscoveryMode").value("ALL").endObject();
+        out.beginObject().name("id").value(ADDITIONAL_BDA_ID).name("bdaId").value("app.war" + Strings.ADDITIONAL_BDA_SUFFIX).endObject();
+        out.endArray();
+        out.name("contexts").beginArray().endArray();
+        out.endObject();
+    }
+
+    private void writeContexts(JsonWriter out) throws IOException {
+        out.beginArray();
+        out.beginObject().name("id").value("application").name("scope").value("javax.enterprise.context.ApplicationScoped").endObject();
+        out.endArray();
+    }
+
+    private void writeApplicationContext(JsonWriter out) throws IOException {
+        out.beginObject().name("instances").beginArray().endArray().endObject();
+    }
+
+    private void writeBeans(JsonWriter out) throws IOException {
+        // Dependencies point to beans with a lower index so that the graph is acyclic
+        List<List<Integer>> dependencies = new ArrayList<>();
+        List<List<Integer>> dependents = new ArrayList<>();
+        for (int i = 0; i < beans; i++) {
+            dependencies.add(new ArrayList<>());
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 1; i < beans; i++) {
+            int count = random.nextInt(MAX_DEPENDENCIES + 1);
+            for (int j = 0; j < count; j++) {
+                int dependency = random.nextInt(i);
+                if (!dependencies.get(i).contains(dependency)) {
+                    dependencies.get(i).add(dependency);
+                    dependents.get(dependency).add(i);
+                }
+            }
+        }
+        out.beginObject().name("data").beginArray();
+        for (int i = 0; i < beans; i++) {
+            out.beginObject();
+            writeBeanRef(out, i);
+            out.name("scope").value(SCOPES[i % SCOPES.length]);
+            out.name("types").beginArray().value(beanClass(i)).value("com.acme.api.Service" + (i % 100)).value("java.lang.Object").endArray();
+            out.name("qualifiers").beginArray().value("@Any").value(QUALIFIERS[i % QUALIFIERS.length]).endArray();
+            out.name("isAlternative").value(i % 50 == 0);
+            out.name("unused").value(dependents.get(i).isEmpty());
+            if (i % 10 == 0) {
+                out.name("stereotypes").beginArray().value("@Model").endArray();
+            }
+            out.name("dependencies").beginArray();
+            for (Integer dependency : dependencies.get(i)) {
+                out.beginObject();
+                writeBeanRef(out, dependency);
+                out.name("requiredType").value(beanClass(dependency));
+                out.name("qualifiers").beginArray().value(QUALIFIERS[dependency % QUALIFIERS.length]).endArray();
+                out.endObject();
+            }
+            out.endArray();
+            out.name("dependents").beginArray();
+            for (Integer dependent : dependents.get(i)) {
+                out.beginObject();
+                writeBeanRef(out, dependent);
+                out.name("requiredType").value(beanClass(i));
+                out.name("qualifiers").beginArray().value(QUALIFIERS[i % QUALIFIERS.length]).endArray();
+                out.endObject();
+            }
+            out.endArray();
+            out.endObject();
+        }
+        out.endArray().endObject();
+    }
+
+    private void writeObservers(JsonWriter out) throws IOException {
+        out.beginObject().name("data").beginArray();
+        for (int i = 0; i < observers; i++) {
+            int bean = beans > 0 ? random.nextInt(beans) : 0;
+            out.beginObject();
+            out.name("id").value(observerId(i));
+            out.name("beanClass").value(beanClass(bean));
+            out.name("observedType").value(eventType(i));
+            out.name("reception").value(i % 7 == 0 ? "IF_EXISTS" : "ALWAYS");
+            out.name("txPhase").value(i % 11 == 0 ? "AFTER_SUCCESS" : "IN_PROGRESS");
+            out.name("qualifiers").beginArray().value("@Any").endArray();
+            if (beans > 0) {
+                out.name("declaringBean").beginObject();
+                writeBeanRef(out, bean);
+                out.endObject();
+            }
+            out.name("description").value("public void " + beanClass(bean) + ".on" + (i % 40) + "(" + eventType(i) + ")");
+            out.endObject();
+        }
+        out.endArray().endObject();
+    }
+
+    private void writeEvents(JsonWriter out) throws IOException {
+        out.beginObject().name("data").beginArray();
+        // The newest events go first
+        for (int i = events - 1; i >= 0; i--) {
+            boolean container = i % 5 == 0;
+            out.beginObject();
+            out.name("type").value(eventType(i));
+            out.name("qualifiers").beginArray().value("@Any").value(QUALIFIERS[i % QUALIFIERS.length]).endArray();
+            out.name("eventInfo").value(eventType(i) + "@" + i);
+            out.name("kind").value(container ? "CONTAINER" : "APPLICATION");
+            out.name("ts").value(START + i * 13L);
+            out.name("observers").beginArray();
+            if (observers > 0) {
+                out.beginObject().name("id").value(observerId(i % observers)).endObject();
+            }
+            out.endArray();
+            out.endObject();
+        }
+        out.endArray().endObject();
+    }
+
+    private void writeInvocations(JsonWriter out) throws IOException {
+        out.beginObject().name("data").beginArray();
+        for (int i = 0; i < invocations; i++) {
+            long start = START + i * 101L;
+            out.beginObject();
+            out.name("id").value(i);
+            writeInvocation(out, start, invocationDepth);
+            out.endObject();
+        }
+        out.endArray().endObject();
+    }
+
+    private long writeInvocation(JsonWriter out, long start, int depth) throws IOException {
+        int bean = beans > 0 ? random.nextInt(beans) : 0;
+        String method = METHODS[random.nextInt(METHODS.length)];
+        out.name("interceptedBean").beginObject();
+        writeBeanRef(out, bean);
+        out.endObject();
+        out.name("declaringClass").value(beanClass(bean));
+        out.name("methodName").value(method);
+        out.name("description").value("public void " + beanClass(bean) + "." + method + "()");
+        out.name("start").value(start);
+        out.name("type").value("BUSINESS");
+        long time = 1 + random.nextInt(20);
+        if (depth > 1) {
+            int children = random.nextInt(MAX_CHILDREN + 1);
+            if (children > 0) {
+                out.name("children").beginArray();
+                for (int i = 0; i < children; i++) {
+                    out.beginObject();
+                    time += writeInvocation(out, start + time, depth - 1);
+                    out.endObject();
+                }
+                out.endArray();
+            }
+        }
+        out.name("time").value(time);
+        return time;
+    }
+
+    private void writeBeanRef(JsonWriter out, int idx) throws IOException {
+        out.name("id").value(beanId(idx));
+        out.name("kind").value(KINDS[idx % KINDS.length]);
+        out.name("beanClass").value(beanClass(idx));
+        out.name("bdaId").value(idx % 10 == 0 ? ADDITIONAL_BDA_ID : BDA_ID);
+    }
+
+    private static void entry(ZipOutputStream zip, String name, EntryWriter writer) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        // A JSON writer only accepts a single top-level value and closing the writer would close the zip stream
+        JsonWriter out = new JsonWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        writer.write(out);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private interface EntryWriter {
+
+        void write(JsonWriter out) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+/**
+ * Data which are not part of the Probe REST API but are computed by the adapter itself, see also {@link AdapterResource}.
+ * <p>
+ * A provider which does not support a specific operation throws {@link ResourceNotAvailableException}.
+ */
+interface AdapterJsonDataProvider extends JsonDataProvider {
+
+    /**
+     * Unless the provider overrides this method, the result of {@link #receiveBeans(int, int, String, String)} is projected.
+     *
+     * @param pageIndex
+     * @param pageSize
+     * @param filters
+     * @param representation
+     * @param fields the comma-separated list of fields to include, if specified the representation is ignored
+     * @return the page of beans
+     */
+    default String receiveBeans(int pageIndex, int pageSize, String filters, String representation, String fields) {
+        return JsonProjection.projectPage(receiveBeans(pageIndex, pageSize, filters, representation), JsonProjection.parseFields(fields));
+    }
+
+    /**
+     * Unless the provider overrides this method, the result of {@link #receiveObservers(int, int, String, String)} is projected.
+     *
+     * @param pageIndex
+     * @param pageSize
+     * @param filters
+     * @param representation
+     * @param fields the comma-separated list of fields to include, if specified the representation is ignored
+     * @return the page of observers
+     */
+    default String receiveObservers(int pageIndex, int pageSize, String filters, String representation, String fields) {
+        return JsonProjection.projectPage(receiveObservers(pageIndex, pageSize, filters, representation), JsonProjection.parseFields(fields));
+    }
+
+    /**
+     * Unless the provider overrides this method, the result of {@link #receiveInvocations(int, int, String, String)} is projected.
+     *
+     * @param pageIndex
+     * @param pageSize
+     * @param filters
+     * @param representation
+     * @param fields the comma-separated list of fields to include, if specified the representation is ignored
+     * @return the page of invocations
+     */
+    default String receiveInvocations(int pageIndex, int pageSize, String filters, String representation, String fields) {
+        return JsonProjection.projectPage(receiveInvocations(pageIndex, pageSize, filters, representation), JsonProjection.parseFields(fields));
+    }
+
+    /**
+     * Writes the details of the given beans, observers or invocations, see also {@link DetailBatch}. Unless the provider overrides this method, each
+     * detail is received separately.
+     *
+     * @param type
+     * @param ids the ordered set of ids
+     * @param out
+     * @throws IOException
+     */
+    default void writeDetails(DetailBatch.Type type, Set<String> ids, Writer out) throws IOException {
+        DetailBatch batch = new DetailBatch(out);
+        for (String id : ids) {
+            String detail;
+            try {
+                detail = type.receive(this, id);
+            } catch (IllegalStateException e) {
+                // No item found for the given id
+                detail = null;
+            }
+            if (detail != null) {
+                batch.write(detail);
+            } else {
+                batch.missing(id);
+            }
+        }
+        batch.end();
+    }
+
+    /**
+     * Aggregates the invocation trees by bean class and method name.
+     *
+     * @param filters the invocation filters, may be <code>null</code>
+     * @param sort the name of the sort property, see also {@link InvocationStats.Sort}
+     * @param limit the max number of results
+     * @return the invocation statistics
+     */
+    default String receiveInvocationStats(String filters, String sort, int limit) {
+        throw new ResourceNotAvailableException();
+    }
+
+    /**
+     * Writes the invocation trees in the folded stack format, see also {@link FoldedStacks}.
+     *
+     * @param filters the invocation filters, may be <code>null</code>
+     * @param out
+     * @throws IOException
+     */
+    default void writeFoldedStacks(String filters, Writer out) throws IOException {
+        throw new ResourceNotAvailableException();
+    }
+
+    /**
+     * Buckets the fired events by time and groups them by type, qualifiers or kind.
+     *
+     * @param filters the event filters, may be <code>null</code>
+     * @param groupBy the name of the group, see also {@link EventTimeline.GroupBy}
+     * @param interval the bucket interval in milliseconds, if not positive a default interval is used
+     * @return the event timeline
+     */
+    default String receiveEventTimeline(String filters, String groupBy, long interval) {
+        throw new ResourceNotAvailableException();
+    }
+
+    /**
+     * Returns the monitoring stats sampled periodically, see also {@link MonitoringSampler}.
+     *
+     * @param metric the metric name, may be <code>null</code>
+     * @param since only the samples taken at this time or later are included
+     * @param points the max number of points per metric
+     * @return the downsampled monitoring history
+     */
+    default String receiveMonitoringHistory(String metric, long since, int points) {
+        throw new ResourceNotAvailableException();
+    }
+
+    /**
+     * Returns the transitive dependencies or dependents of a bean, see also {@link BeanGraph}.
+     *
+     * @param id the bean id
+     * @param dependents if <code>true</code> the dependents are returned, otherwise the dependencies
+     * @param maxDepth the max depth, if not positive the depth is not limited
+     * @return the transitive dependencies or dependents
+     */
+    default String receiveBeanDependencies(String id, boolean dependents, int maxDepth) {
+        throw new ResourceNotAvailableException();
+    }
+
+    /**
+     *
+     * @param fromId the id of the dependent bean
+     * @param toId the id of the dependency
+     * @return the shortest dependency path between the given beans
+     */
+    default String receiveBeanPath(String fromId, String toId) {
+        throw new ResourceNotAvailableException();
+    }
+
+    /**
+     *
+     * @param by either <code>fanIn</code> (the number of dependents) or <code>fanOut</code> (the number of dependencies)
+     * @param limit the max number of results
+     * @return the beans ranking
+     */
+    default String receiveBeanRanking(String by, int limit) {
+        throw new ResourceNotAvailableException();
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+
+/**
+ * The request and remote call metrics of the adapter. The same metrics are also exposed in the Prometheus text format, see {@link RequestMetrics}.
+ * The durations are in milliseconds.
+ */
+public interface AdapterMetricsMXBean {
+
+    /**
+     *
+     * @return the metrics of each resource requested so far
+     */
+    List<ResourceStats> getResources();
+
+    /**
+     *
+     * @return the metrics of each remote {@link JsonDataProvider} method called so far
+     */
+    List<CallStats> getRemoteCalls();
+
+    /**
+     *
+     * @return the number of results prefetched by the connected container, or 0 if prefetching is disabled
+     */
+    long getPrefetches();
+
+    public static class ResourceStats {
+
+        private final String resource;
+
+        private final CallStats requests;
+
+        private final long bytesOut;
+
+        private final long remoteCalls;
+
+        private final double remoteTime;
+
+        private final long cacheHits;
+
+        private final long cacheMisses;
+
+        @ConstructorProperties({ "resource", "requests", "bytesOut", "remoteCalls", "remoteTime", "cacheHits", "cacheMisses" })
+        public ResourceStats(String resource, CallStats requests, long bytesOut, long remoteCalls, double remoteTime, long cacheHits,
+                long cacheMisses) {
+            this.resource = resource;
+            this.requests = requests;
+            this.bytesOut = bytesOut;
+            this.remoteCalls = remoteCalls;
+            this.remoteTime = remoteTime;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public CallStats getRequests() {
+            return requests;
+        }
+
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        /**
+         *
+         * @return the number of remote calls made while handling the requests
+         */
+        public long getRemoteCalls() {
+            return remoteCalls;
+        }
+
+        /**
+         *
+         * @return the total time spent in the remote calls made while handling the requests
+         */
+        public double getRemoteTime() {
+            return remoteTime;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+
+        /**
+         *
+         * @return the cache hit ratio, or -1 if no cache was used
+         */
+        public double getCacheHitRatio() {
+            long total = cacheHits + cacheMisses;
+            return total > 0 ? (double) cacheHits / total : -1;
+        }
+
+    }
+
+    public static class CallStats {
+
+        private final String name;
+
+        private final long count;
+
+        private final long errors;
+
+        private final double mean;
+
+        private final double p50;
+
+        private final double p90;
+
+        private final double p99;
+
+        private final double max;
+
+        @ConstructorProperties({ "name", "count", "errors", "mean", "p50", "p90", "p99", "max" })
+        public CallStats(String name, long count, long errors, double mean, double p50, double p90, double p99, double max) {
+            this.name = name;
+            this.count = count;
+            this.errors = errors;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+    }
+
+}
@@ -0,0 +1,315 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.FILTERS;
+import static org.jboss.weld.probe.Strings.REPRESENTATION;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jboss.weld.probe.Resource.Handler;
+import org.jboss.weld.probe.Resource.HttpMethod;
+
+/**
+ * Resources which are not part of the Probe REST API but are provided by the adapter, see also {@link AdapterJsonDataProvider}. These resources are
+ * matched before the Probe resources.
+ * <p>
+ * A resource may also extend a Probe resource. In that case only the GET requests are handled by the adapter resource.
+ */
+enum AdapterResource {
+
+    /**
+     * Beans with optional field projection
+     */
+    BEANS(Resource.BEANS, "/beans", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveBeans(getPage(req), getPageSize(req), req.getParameter(FILTERS),
+                    req.getParameter(REPRESENTATION), req.getParameter(JsonProjection.FIELDS)));
+        }
+    }),
+    /**
+     * Observers with optional field projection
+     */
+    OBSERVERS(Resource.OBSERVERS, "/observers", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveObservers(getPage(req), getPageSize(req), req.getParameter(FILTERS),
+                    req.getParameter(REPRESENTATION), req.getParameter(JsonProjection.FIELDS)));
+        }
+    }),
+    /**
+     * Invocations with optional field projection
+     */
+    INVOCATIONS(Resource.INVOCATIONS, "/invocations", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveInvocations(getPage(req), getPageSize(req), req.getParameter(FILTERS),
+                    req.getParameter(REPRESENTATION), req.getParameter(JsonProjection.FIELDS)));
+        }
+    }),
+    /**
+     * Invocation statistics aggregated by bean class and method
+     */
+    INVOCATION_STATS("/invocations/hotspots", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveInvocationStats(req.getParameter(FILTERS), req.getParameter(SORT),
+                    getIntParameter(req, LIMIT, InvocationStats.DEFAULT_LIMIT)));
+        }
+    }),
+    /**
+     * Invocation trees in the folded stack format
+     */
+    FOLDED_STACKS("/invocations/folded", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            // The stacks are streamed as the trees are traversed
+            adapter(jsonDataProvider).writeFoldedStacks(req.getParameter(FILTERS), resp.getWriter());
+        }
+
+        @Override
+        protected String getContentType() {
+            return Strings.TEXT_PLAIN;
+        }
+    }),
+    /**
+     * Flame graph view of the folded stacks
+     */
+    FLAME_GRAPH("/invocations/flamegraph", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, IOUtils.getResourceAsString(PATH_META_INF_ADAPTER + FILE_FLAME_GRAPH_HTML));
+        }
+
+        @Override
+        protected String getContentType() {
+            return Strings.TEXT_HTML;
+        }
+    }),
+    /**
+     * Fired events bucketed by time and grouped by type, qualifiers or kind
+     */
+    EVENT_TIMELINE("/events/timeline", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveEventTimeline(req.getParameter(FILTERS), req.getParameter(EventTimeline.GROUP_BY),
+                    getLongParameter(req, EventTimeline.INTERVAL, 0)));
+        }
+    }),
+    /**
+     * Monitoring stats sampled periodically
+     */
+    MONITORING_HISTORY("/monitoring/history", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveMonitoringHistory(req.getParameter(MonitoringSampler.METRIC),
+                    getLongParameter(req, MonitoringSampler.SINCE, 0), getIntParameter(req, MonitoringSampler.POINTS, MonitoringSampler.DEFAULT_POINTS)));
+        }
+    }),
+    /**
+     * Transitive dependencies of a bean
+     */
+    BEAN_GRAPH_DEPENDENCIES("/graph/{.+}/dependencies", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveBeanDependencies(resourcePathParts[1], false, getIntParameter(req, BeanGraph.DEPTH, 0)));
+        }
+    }),
+    /**
+     * Transitive dependents of a bean
+     */
+    BEAN_GRAPH_DEPENDENTS("/graph/{.+}/dependents", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveBeanDependencies(resourcePathParts[1], true, getIntParameter(req, BeanGraph.DEPTH, 0)));
+        }
+    }),
+    /**
+     * Shortest dependency path between two beans
+     */
+    BEAN_GRAPH_PATH("/graph/path", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveBeanPath(getRequiredParameter(req, BeanGraph.FROM), getRequiredParameter(req, BeanGraph.TO)));
+        }
+    }),
+    /**
+     * Beans ranked by fan-in or fan-out
+     */
+    BEAN_GRAPH_RANKING("/graph/ranking", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            append(resp, adapter(jsonDataProvider).receiveBeanRanking(req.getParameter(BeanGraph.BY), getIntParameter(req, LIMIT, DEFAULT_LIMIT)));
+        }
+    }),
+    /**
+     * Details of multiple beans, observers or invocations - the ids are specified either as a query parameter or in the body of a POST request
+     */
+    DETAIL_BATCH("/batch/{.+}", new Handler() {
+        @Override
+        protected void get(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            writeDetails(jsonDataProvider, resourcePathParts, req.getParameter(DetailBatch.IDS), resp);
+        }
+
+        @Override
+        protected void post(JsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp)
+                throws IOException {
+            writeDetails(jsonDataProvider, resourcePathParts, readToString(req.getReader()), resp);
+        }
+
+        private void writeDetails(JsonDataProvider jsonDataProvider, String[] resourcePathParts, String ids, HttpServletResponse resp)
+                throws IOException {
+            // Validate the request before the response is committed
+            DetailBatch.Type type = DetailBatch.Type.from(resourcePathParts[1]);
+            Set<String> parsedIds = DetailBatch.parseIds(ids);
+            adapter(jsonDataProvider).writeDetails(type, parsedIds, resp.getWriter());
+        }
+    }),;
+
+    static final String SORT = "sort";
+
+    static final String LIMIT = "limit";
+
+    static final int DEFAULT_LIMIT = 50;
+
+    static final String PATH_META_INF_ADAPTER = "/META-INF/adapter/";
+
+    static final String FILE_FLAME_GRAPH_HTML = "flamegraph.html";
+
+    // Init constant parts
+    private final String[] parts;
+
+    private final Handler handler;
+
+    // The extended Probe resource, may be null
+    private final Resource extended;
+
+    private AdapterResource(String path, Handler handler) {
+        this(null, path, handler);
+    }
+
+    private AdapterResource(Resource extended, String path, Handler handler) {
+        this.extended = extended;
+        this.parts = Resource.splitPath(path);
+        this.handler = handler;
+    }
+
+    /**
+     *
+     * @param method
+     * @param jsonDataProvider
+     * @param resourcePathParts
+     * @param req
+     * @param resp
+     * @throws IOException
+     */
+    void handle(HttpMethod method, AdapterJsonDataProvider jsonDataProvider, String[] resourcePathParts, HttpServletRequest req,
+            HttpServletResponse resp) throws IOException {
+        if (extended != null && !HttpMethod.GET.equals(method)) {
+            extended.handle(method, jsonDataProvider, resourcePathParts, req, resp);
+        } else {
+            handler.handle(method, jsonDataProvider, resourcePathParts, req, resp);
+        }
+    }
+
+    /**
+     *
+     * @param resourcePathParts
+     * @return <code>true</code> if this resource matches the given path parts, <code>false</code> otherwise
+     */
+    boolean matches(String[] resourcePathParts) {
+        if (resourcePathParts.length != parts.length) {
+            return false;
+        }
+        for (int i = 0; i < parts.length; i++) {
+            if (Resource.isParam(parts[i])) {
+                if (!resourcePathParts[i].matches(parts[i].substring(1, parts[i].length() - 1))) {
+                    return false;
+                }
+            } else if (!parts[i].equals(resourcePathParts[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static AdapterJsonDataProvider adapter(JsonDataProvider jsonDataProvider) {
+        return (AdapterJsonDataProvider) jsonDataProvider;
+    }
+
+    private static String readToString(Reader reader) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[1024];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, read);
+        }
+        return builder.toString();
+    }
+
+    private static String getRequiredParameter(HttpServletRequest req, String name) {
+        String value = req.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            throw new InvalidRequestException("Parameter required: " + name);
+        }
+        return value;
+    }
+
+    private static long getLongParameter(HttpServletRequest req, String name, long defaultValue) {
+        String value = req.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid value of parameter " + name + ": " + value, e);
+        }
+    }
+
+    private static int getIntParameter(HttpServletRequest req, String name, int defaultValue) {
+        String value = req.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid value of parameter " + name + ": " + value, e);
+        }
+    }
+
+}
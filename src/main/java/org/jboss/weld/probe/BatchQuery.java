@@ -0,0 +1,266 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static java.lang.System.err;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Runs a query over one or more export files without starting Undertow. The export files are processed in parallel and the matches are streamed as
+ * newline-delimited JSON, i.e. one JSON object per line. Alternatively, the matching invocation trees may be streamed in the folded stack format.
+ */
+class BatchQuery {
+
+    static final String OPTION_QUERY = "--query";
+
+    static final String OPTION_FILTERS = "--filters";
+
+    static final String OPTION_THREADS = "--threads";
+
+    static final String OPTION_FORMAT = "--format";
+
+    static final String EXPORT = "export";
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    // Keep a strong reference so that the level is not lost
+    private static final Logger EXPORT_LOGGER = Logger.getLogger(ExportFileJsonDataProvider.class.getName());
+
+    private final Type type;
+
+    private final Format format;
+
+    private final String filters;
+
+    private final List<File> exportFiles;
+
+    private final int threads;
+
+    private final Writer out;
+
+    BatchQuery(Type type, Format format, String filters, List<File> exportFiles, int threads, Writer out) {
+        this.type = type;
+        this.format = format;
+        this.filters = filters;
+        this.exportFiles = exportFiles;
+        this.threads = threads;
+        this.out = out;
+    }
+
+    static boolean isBatchQuery(String[] args) {
+        return Arrays.asList(args).contains(OPTION_QUERY);
+    }
+
+    /**
+     *
+     * @param args
+     * @param out
+     * @return the query
+     * @throws IllegalArgumentException If the arguments are not valid
+     */
+    static BatchQuery from(String[] args, Writer out) {
+        Type type = null;
+        Format format = Format.JSON;
+        String filters = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> exportFiles = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (OPTION_QUERY.equals(arg)) {
+                type = Type.from(value(args, ++i, arg));
+            } else if (OPTION_FILTERS.equals(arg)) {
+                filters = value(args, ++i, arg);
+            } else if (OPTION_FORMAT.equals(arg)) {
+                format = Format.from(value(args, ++i, arg));
+            } else if (OPTION_THREADS.equals(arg)) {
+                threads = Integer.parseInt(value(args, ++i, arg));
+            } else {
+                File file = new File(arg);
+                if (file.isDirectory()) {
+                    File[] files = file.listFiles((dir, name) -> name.endsWith(ExportFileRegistry.EXPORT_FILE_SUFFIX));
+                    if (files != null) {
+                        Arrays.sort(files);
+                        exportFiles.addAll(Arrays.asList(files));
+                    }
+                } else if (file.canRead()) {
+                    exportFiles.add(file);
+                } else {
+                    throw new IllegalArgumentException("Export file does not exist or is not readable: " + arg);
+                }
+            }
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Query type not specified");
+        }
+        if (exportFiles.isEmpty()) {
+            throw new IllegalArgumentException("No export files specified");
+        }
+        if (format == Format.FOLDED && type != Type.INVOCATIONS) {
+            throw new IllegalArgumentException("Folded format is only supported for invocations");
+        }
+        if (type == Type.INVOCATIONS && filters != null) {
+            ExportFileJsonDataProvider.ExportInvocationsFilters.validate(filters);
+        }
+        return new BatchQuery(type, format, filters, exportFiles, Math.max(1, threads), out);
+    }
+
+    static String usage() {
+        StringBuilder usage = new StringBuilder();
+        usage.append("Usage: --query <beans|observers|events|invocations> [--filters <filters>] [--format <json|folded>] [--threads <threads>]");
+        usage.append(" <export file or directory>...");
+        usage.append(System.lineSeparator());
+        usage.append("The folded format (folded stacks weighted by self time) is only supported for invocations");
+        usage.append(System.lineSeparator());
+        // Filter values must be quoted
+        usage.append("Filters example: --filters 'unused:\"true\"' or --filters 'minTime:\"500\" beanClass:\"Foo\"'");
+        return usage.toString();
+    }
+
+    /**
+     *
+     * @return the exit code
+     */
+    int run() {
+        Level originalLevel = EXPORT_LOGGER.getLevel();
+        // Only report problems
+        EXPORT_LOGGER.setLevel(Level.WARNING);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, exportFiles.size()));
+        int failures = 0;
+        try {
+            Map<File, Future<?>> results = new LinkedHashMap<>();
+            for (File exportFile : exportFiles) {
+                results.put(exportFile, executor.submit(() -> {
+                    query(exportFile);
+                    return null;
+                }));
+            }
+            for (Entry<File, Future<?>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException e) {
+                    failures++;
+                    err.println("Unable to query " + result.getKey() + ": " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures++;
+        } finally {
+            executor.shutdownNow();
+            EXPORT_LOGGER.setLevel(originalLevel);
+        }
+        return failures == 0 ? 0 : 1;
+    }
+
+    private void query(File exportFile) throws IOException {
+        String export = exportFile.getPath();
+        StringBuilder lines = new StringBuilder();
+        for (JsonObject match : type.finder.apply(new ExportFileJsonDataProvider(exportFile), filters)) {
+            if (format == Format.FOLDED) {
+                FoldedStacks.write(match, lines);
+            } else {
+                JsonObject line = new JsonObject();
+                line.addProperty(EXPORT, export);
+                line.add(Strings.DATA, match);
+                lines.append(line.toString());
+                lines.append('\n');
+            }
+            if (lines.length() > FLUSH_THRESHOLD) {
+                write(lines);
+                lines.setLength(0);
+            }
+        }
+        write(lines);
+    }
+
+    private void write(CharSequence lines) throws IOException {
+        if (lines.length() == 0) {
+            return;
+        }
+        // Lines of different export files may interleave but a line is never split
+        synchronized (out) {
+            out.append(lines);
+            out.flush();
+        }
+    }
+
+    private static String value(String[] args, int idx, String option) {
+        if (idx >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[idx];
+    }
+
+    enum Type {
+
+        BEANS(ExportFileJsonDataProvider::findBeans),
+        OBSERVERS(ExportFileJsonDataProvider::findObservers),
+        EVENTS(ExportFileJsonDataProvider::findEvents),
+        INVOCATIONS(ExportFileJsonDataProvider::findInvocations),;
+
+        private final BiFunction<ExportFileJsonDataProvider, String, List<JsonObject>> finder;
+
+        private Type(BiFunction<ExportFileJsonDataProvider, String, List<JsonObject>> finder) {
+            this.finder = finder;
+        }
+
+        static Type from(String value) {
+            for (Type type : values()) {
+                if (type.toString().equalsIgnoreCase(value)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported query type: " + value);
+        }
+
+    }
+
+    enum Format {
+
+        JSON,
+        FOLDED,;
+
+        static Format from(String value) {
+            for (Format format : values()) {
+                if (format.toString().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported format: " + value);
+        }
+
+    }
+
+}
@@ -0,0 +1,329 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.BEAN_CLASS;
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.DEPENDENCIES;
+import static org.jboss.weld.probe.Strings.DEPENDENTS;
+import static org.jboss.weld.probe.Strings.ID;
+import static org.jboss.weld.probe.Strings.KIND;
+import static org.jboss.weld.probe.Strings.TOTAL;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * An immutable bean dependency graph. Each bean is represented by an int id, the edges are stored in the compressed sparse row format, i.e. the
+ * targets of all the edges in a single array and an array of offsets per bean. Both directions are stored, so that dependencies and dependents are
+ * equally fast to traverse.
+ * <p>
+ * An edge leads from a bean to its dependency.
+ */
+class BeanGraph {
+
+    static final String DEPTH = "depth";
+
+    static final String FAN_IN = "fanIn";
+
+    static final String FAN_OUT = "fanOut";
+
+    static final String LENGTH = "length";
+
+    static final String FROM = "from";
+
+    static final String TO = "to";
+
+    static final String BY = "by";
+
+    private final Map<String, Integer> nodes;
+
+    private final String[] ids;
+
+    private final String[] kinds;
+
+    private final String[] beanClasses;
+
+    // Dependencies
+    private final int[] outOffsets;
+
+    private final int[] outTargets;
+
+    // Dependents
+    private final int[] inOffsets;
+
+    private final int[] inTargets;
+
+    private BeanGraph(Map<String, Integer> nodes, String[] ids, String[] kinds, String[] beanClasses, long[] edges) {
+        this.nodes = nodes;
+        this.ids = ids;
+        this.kinds = kinds;
+        this.beanClasses = beanClasses;
+        this.outOffsets = new int[ids.length + 1];
+        this.outTargets = new int[edges.length];
+        this.inOffsets = new int[ids.length + 1];
+        this.inTargets = new int[edges.length];
+        // Edges are sorted by source, i.e. the out targets are sorted too
+        for (long edge : edges) {
+            outOffsets[source(edge) + 1]++;
+            inOffsets[target(edge) + 1]++;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        int[] inNext = Arrays.copyOf(inOffsets, ids.length);
+        for (int i = 0; i < edges.length; i++) {
+            outTargets[i] = target(edges[i]);
+            inTargets[inNext[target(edges[i])]++] = source(edges[i]);
+        }
+    }
+
+    /**
+     * The dependencies and dependents of each bean are taken into account. The beans referenced from a dependency (e.g. built-in beans) are also
+     * included.
+     *
+     * @param beans the full representation of beans
+     * @return the graph
+     */
+    static BeanGraph of(JsonArray beans) {
+        Map<String, Integer> nodes = new HashMap<>();
+        List<JsonObject> nodeBeans = new ArrayList<>();
+        for (JsonElement bean : beans) {
+            node(bean.getAsJsonObject(), nodes, nodeBeans);
+        }
+        // Each edge is encoded as a single long - the source in the upper bits and the target in the lower bits
+        long[] edges = new long[64];
+        int size = 0;
+        for (JsonElement element : beans) {
+            JsonObject bean = element.getAsJsonObject();
+            int node = node(bean, nodes, nodeBeans);
+            if (bean.has(DEPENDENCIES)) {
+                for (JsonElement dependency : bean.get(DEPENDENCIES).getAsJsonArray()) {
+                    if (size == edges.length) {
+                        edges = Arrays.copyOf(edges, size * 2);
+                    }
+                    edges[size++] = edge(node, node(dependency.getAsJsonObject(), nodes, nodeBeans));
+                }
+            }
+            if (bean.has(DEPENDENTS)) {
+                for (JsonElement dependent : bean.get(DEPENDENTS).getAsJsonArray()) {
+                    if (size == edges.length) {
+                        edges = Arrays.copyOf(edges, size * 2);
+                    }
+                    edges[size++] = edge(node(dependent.getAsJsonObject(), nodes, nodeBeans), node);
+                }
+            }
+        }
+        // Sort and remove duplicates
+        Arrays.sort(edges, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || edges[i] != edges[unique - 1]) {
+                edges[unique++] = edges[i];
+            }
+        }
+        String[] ids = new String[nodeBeans.size()];
+        String[] kinds = new String[nodeBeans.size()];
+        String[] beanClasses = new String[nodeBeans.size()];
+        for (int i = 0; i < ids.length; i++) {
+            JsonObject bean = nodeBeans.get(i);
+            ids[i] = bean.get(ID).getAsString();
+            kinds[i] = bean.has(KIND) ? bean.get(KIND).getAsString() : null;
+            beanClasses[i] = bean.has(BEAN_CLASS) ? bean.get(BEAN_CLASS).getAsString() : null;
+        }
+        return new BeanGraph(nodes, ids, kinds, beanClasses, Arrays.copyOf(edges, unique));
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int edges() {
+        return outTargets.length;
+    }
+
+    /**
+     * Breadth-first traversal, the beans are ordered by depth.
+     *
+     * @param id
+     * @param dependents if <code>true</code> the dependents are traversed, otherwise the dependencies
+     * @param maxDepth the max depth, if not positive the depth is not limited
+     * @return the JSON representation of the transitive closure, the given bean is not included
+     */
+    String getTransitive(String id, boolean dependents, int maxDepth) {
+        int start = getNode(id);
+        int[] offsets = dependents ? inOffsets : outOffsets;
+        int[] targets = dependents ? inTargets : outTargets;
+        int[] depths = new int[ids.length];
+        int[] queue = new int[ids.length];
+        int head = 0;
+        int tail = 0;
+        depths[start] = 1;
+        queue[tail++] = start;
+        JsonArray data = new JsonArray();
+        while (head < tail) {
+            int node = queue[head++];
+            if (maxDepth > 0 && depths[node] > maxDepth) {
+                break;
+            }
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int next = targets[i];
+                if (depths[next] == 0) {
+                    // Depth is stored as +1 so that 0 means not visited
+                    depths[next] = depths[node] + 1;
+                    JsonObject bean = toJson(next);
+                    bean.addProperty(DEPTH, depths[node]);
+                    data.add(bean);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        JsonObject result = toJson(start);
+        result.addProperty(TOTAL, data.size());
+        result.add(DATA, data);
+        return result.toString();
+    }
+
+    /**
+     * Breadth-first search along the dependencies.
+     *
+     * @param fromId
+     * @param toId
+     * @return the JSON representation of the shortest path, the path is empty if the target bean is not reachable
+     */
+    String getShortestPath(String fromId, String toId) {
+        int from = getNode(fromId);
+        int to = getNode(toId);
+        int[] previous = new int[ids.length];
+        Arrays.fill(previous, -1);
+        int[] queue = new int[ids.length];
+        int head = 0;
+        int tail = 0;
+        previous[from] = from;
+        queue[tail++] = from;
+        while (head < tail && previous[to] == -1) {
+            int node = queue[head++];
+            for (int i = outOffsets[node]; i < outOffsets[node + 1]; i++) {
+                int next = outTargets[i];
+                if (previous[next] == -1) {
+                    previous[next] = node;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        JsonArray data = new JsonArray();
+        if (previous[to] != -1) {
+            int[] path = new int[ids.length];
+            int length = 0;
+            for (int node = to; node != from; node = previous[node]) {
+                path[length++] = node;
+            }
+            path[length++] = from;
+            for (int i = length - 1; i >= 0; i--) {
+                data.add(toJson(path[i]));
+            }
+        }
+        JsonObject result = new JsonObject();
+        result.addProperty(FROM, fromId);
+        result.addProperty(TO, toId);
+        // The number of edges
+        result.addProperty(LENGTH, data.size() > 0 ? data.size() - 1 : -1);
+        result.add(DATA, data);
+        return result.toString();
+    }
+
+    /**
+     *
+     * @param fanIn if <code>true</code> the beans are ranked by the number of dependents, otherwise by the number of dependencies
+     * @param limit
+     * @return the JSON representation of the ranking
+     */
+    String getRanking(boolean fanIn, int limit) {
+        int[] offsets = fanIn ? inOffsets : outOffsets;
+        // Sort by degree in descending order - encode the degree and the node in a single long to avoid boxing
+        long[] ranking = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ranking[i] = ((long) (offsets[i + 1] - offsets[i]) << 32) | (Integer.MAX_VALUE - i);
+        }
+        Arrays.sort(ranking);
+        JsonArray data = new JsonArray();
+        for (int i = ranking.length - 1; i >= 0 && data.size() < limit; i--) {
+            int node = Integer.MAX_VALUE - (int) ranking[i];
+            JsonObject bean = toJson(node);
+            bean.addProperty(FAN_IN, inOffsets[node + 1] - inOffsets[node]);
+            bean.addProperty(FAN_OUT, outOffsets[node + 1] - outOffsets[node]);
+            data.add(bean);
+        }
+        JsonObject result = new JsonObject();
+        result.addProperty(BY, fanIn ? FAN_IN : FAN_OUT);
+        result.addProperty(TOTAL, ids.length);
+        result.add(DATA, data);
+        return result.toString();
+    }
+
+    private int getNode(String id) {
+        Integer node = nodes.get(id);
+        if (node == null) {
+            throw new InvalidRequestException("No bean found for: " + id);
+        }
+        return node;
+    }
+
+    private JsonObject toJson(int node) {
+        JsonObject bean = new JsonObject();
+        bean.addProperty(ID, ids[node]);
+        if (kinds[node] != null) {
+            bean.addProperty(KIND, kinds[node]);
+        }
+        if (beanClasses[node] != null) {
+            bean.addProperty(BEAN_CLASS, beanClasses[node]);
+        }
+        return bean;
+    }
+
+    private static int node(JsonObject bean, Map<String, Integer> nodes, List<JsonObject> nodeBeans) {
+        String id = bean.get(ID).getAsString();
+        Integer node = nodes.get(id);
+        if (node == null) {
+            node = nodeBeans.size();
+            nodes.put(id, node);
+            nodeBeans.add(bean);
+        }
+        return node;
+    }
+
+    private static long edge(int source, int target) {
+        return ((long) source << 32) | target;
+    }
+
+    private static int source(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int target(long edge) {
+        return (int) edge;
+    }
+
+}
@@ -0,0 +1,382 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The assets of the Probe HTML client (see {@link Resource#CLIENT_RESOURCE}) held in memory. The assets are read from the classpath once, each compressible
+ * asset is also gzipped upfront.
+ * <p>
+ * The text-based assets contain the <code>${contextPath}</code> placeholder and so these are rendered once for each context path. The references to other
+ * assets are versioned with the content hash, i.e. a versioned asset may be cached by the browser forever. The other responses (incl. the HTML page itself)
+ * must be revalidated - this is cheap as a matching <code>If-None-Match</code> header results in 304 Not Modified.
+ */
+class ClientResources {
+
+    private static final Logger LOGGER = Logger.getLogger(ClientResources.class.getName());
+
+    static final String CLIENT_PATH = "/META-INF/client/";
+
+    static final String DEFAULT_ASSET = "probe.html";
+
+    static final String VERSION_PARAM = "h";
+
+    static final String CONTEXT_PATH_PLACEHOLDER = "${contextPath}";
+
+    private static final String CACHE_CONTROL_VERSIONED = "public, max-age=31536000, immutable";
+
+    private static final String CACHE_CONTROL_REVALIDATE = "no-cache";
+
+    private static final String GZIP = "gzip";
+
+    // Do not bother with the gzipped variant unless at least 10% is saved, e.g. for images
+    private static final double MIN_GZIP_RATIO = 0.9;
+
+    private final Map<String, Asset> assets;
+
+    private final Map<String, String> templates;
+
+    private final ConcurrentMap<String, Assets> rendered;
+
+    private ClientResources(Map<String, Asset> assets, Map<String, String> templates) {
+        this.assets = assets;
+        this.templates = templates;
+        this.rendered = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * If the assets cannot be loaded, nothing is cached and all the requests are handled by {@link Resource#CLIENT_RESOURCE}.
+     *
+     * @return the client resources
+     */
+    static ClientResources load() {
+        long start = System.nanoTime();
+        Map<String, Asset> assets = new HashMap<>();
+        Map<String, String> templates = new HashMap<>();
+        long bytes = 0;
+        try {
+            for (String name : findAssetNames()) {
+                byte[] data = read(CLIENT_PATH + name);
+                if (data == null) {
+                    continue;
+                }
+                bytes += data.length;
+                String contentType = Resource.detectContentType(name);
+                if (Resource.isTextBasedContenType(contentType)) {
+                    String text = new String(data, StandardCharsets.UTF_8);
+                    if (text.contains(CONTEXT_PATH_PLACEHOLDER)) {
+                        templates.put(name, text);
+                        continue;
+                    }
+                }
+                assets.put(name, new Asset(contentType, data));
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Unable to load the client resources: " + e.getMessage());
+            return new ClientResources(Collections.emptyMap(), Collections.emptyMap());
+        }
+        LOGGER.info(String.format("%s client resources (%s kB) loaded in %s ms", assets.size() + templates.size(), bytes / 1024,
+                (System.nanoTime() - start) / 1000000));
+        return new ClientResources(assets, templates);
+    }
+
+    /**
+     *
+     * @param contextPath
+     * @return the assets rendered for the given context path
+     */
+    Assets forContextPath(String contextPath) {
+        return rendered.computeIfAbsent(contextPath, this::render);
+    }
+
+    private Assets render(String contextPath) {
+        String base = contextPath + SimpleProbeFilter.REST_URL_PATTERN_BASE + "/";
+        Pattern reference = Pattern.compile(Pattern.quote(base + "client/") + "([a-zA-Z_0-9-]+\\.\\w+)(\\?)?");
+        Map<String, Asset> result = new HashMap<>(assets);
+        // The HTML page references the other templates, so it must be rendered last
+        List<String> names = new ArrayList<>(templates.keySet());
+        names.sort((n1, n2) -> Boolean.compare(n1.endsWith(".html"), n2.endsWith(".html")));
+        for (String name : names) {
+            String text = templates.get(name).replace(CONTEXT_PATH_PLACEHOLDER, base);
+            text = versionReferences(text, reference, result);
+            result.put(name, new Asset(Resource.detectContentType(name), text.getBytes(StandardCharsets.UTF_8)));
+        }
+        return new Assets(result);
+    }
+
+    static String versionReferences(String text, Pattern reference, Map<String, Asset> assets) {
+        Matcher matcher = reference.matcher(text);
+        StringBuffer result = new StringBuffer(text.length() + 256);
+        while (matcher.find()) {
+            Asset asset = assets.get(matcher.group(1));
+            String replacement = matcher.group();
+            if (asset != null) {
+                StringBuilder versioned = new StringBuilder(matcher.group().length() + 24);
+                versioned.append(text, matcher.start(), matcher.end(1));
+                versioned.append('?');
+                versioned.append(VERSION_PARAM);
+                versioned.append('=');
+                versioned.append(asset.hash);
+                if (matcher.group(2) != null) {
+                    // Keep the original query, e.g. fontawesome-webfont.eot?v=4.2.0
+                    versioned.append('&');
+                }
+                replacement = versioned.toString();
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static List<String> findAssetNames() throws IOException {
+        URL url = ClientResources.class.getResource(CLIENT_PATH + DEFAULT_ASSET);
+        if (url == null) {
+            throw new IOException(CLIENT_PATH + DEFAULT_ASSET + " not found");
+        }
+        List<String> names = new ArrayList<>();
+        URLConnection connection = url.openConnection();
+        if (connection instanceof JarURLConnection) {
+            // E.g. the shaded jar - the jar file may not be shared with other connections
+            connection.setUseCaches(false);
+            try (JarFile jar = ((JarURLConnection) connection).getJarFile()) {
+                String prefix = CLIENT_PATH.substring(1);
+                for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();) {
+                    JarEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().startsWith(prefix) && entry.getName().indexOf('/', prefix.length()) == -1) {
+                        names.add(entry.getName().substring(prefix.length()));
+                    }
+                }
+            }
+        } else if ("file".equals(url.getProtocol())) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(url.toURI()).getParent(), Files::isRegularFile)) {
+                for (Path path : stream) {
+                    names.add(path.getFileName().toString());
+                }
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        } else {
+            throw new IOException("Unsupported protocol: " + url);
+        }
+        return names;
+    }
+
+    private static byte[] read(String path) throws IOException {
+        try (InputStream in = ClientResources.class.getResourceAsStream(path)) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * The assets rendered for a specific context path.
+     */
+    static class Assets {
+
+        private final Map<String, Asset> assets;
+
+        private Assets(Map<String, Asset> assets) {
+            this.assets = assets;
+        }
+
+        /**
+         *
+         * @param resourcePathParts
+         * @param req
+         * @param resp
+         * @return <code>true</code> if the asset was found and sent, <code>false</code> otherwise
+         * @throws IOException
+         */
+        boolean send(String[] resourcePathParts, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            Asset asset = assets.get(resourcePathParts.length == 0 ? DEFAULT_ASSET : resourcePathParts[resourcePathParts.length - 1]);
+            if (asset == null) {
+                return false;
+            }
+            boolean gzip = asset.gzipped != null && acceptsGzip(req.getHeader("Accept-Encoding"));
+            String etag = gzip ? asset.gzipEtag : asset.etag;
+
+            Resource.Handler.setCorsHeaders(resp);
+            resp.setHeader("Cache-Control", asset.hash.equals(req.getParameter(VERSION_PARAM)) ? CACHE_CONTROL_VERSIONED : CACHE_CONTROL_REVALIDATE);
+            resp.setHeader("ETag", etag);
+            if (asset.gzipped != null) {
+                resp.setHeader("Vary", "Accept-Encoding");
+            }
+            if (matches(req.getHeader("If-None-Match"), etag)) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+            byte[] data = gzip ? asset.gzipped : asset.data;
+            if (asset.textBased) {
+                resp.setCharacterEncoding(Strings.ENCODING_UTF8);
+            }
+            resp.setContentType(asset.contentType);
+            if (gzip) {
+                resp.setHeader("Content-Encoding", GZIP);
+            }
+            resp.setContentLength(data.length);
+            resp.getOutputStream().write(data);
+            return true;
+        }
+
+        static boolean acceptsGzip(String acceptEncoding) {
+            if (acceptEncoding == null) {
+                return false;
+            }
+            for (String coding : acceptEncoding.split(",")) {
+                String[] params = coding.split(";");
+                if (GZIP.equalsIgnoreCase(params[0].trim())) {
+                    for (int i = 1; i < params.length; i++) {
+                        String param = params[i].trim();
+                        if (param.startsWith("q=")) {
+                            try {
+                                return Double.parseDouble(param.substring(2)) > 0;
+                            } catch (NumberFormatException e) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static boolean matches(String ifNoneMatch, String etag) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                // Weak comparison
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    static class Asset {
+
+        private final String contentType;
+
+        private final boolean textBased;
+
+        private final byte[] data;
+
+        private final byte[] gzipped;
+
+        final String hash;
+
+        private final String etag;
+
+        private final String gzipEtag;
+
+        /**
+         *
+         * @param contentType the content type as detected by {@link Resource#detectContentType(String)}
+         * @param data
+         */
+        Asset(String contentType, byte[] data) {
+            // Note that the detected type may contain leading whitespace
+            this.contentType = contentType.trim();
+            this.textBased = Resource.isTextBasedContenType(contentType);
+            this.data = data;
+            this.gzipped = gzip(data);
+            this.hash = hash(data);
+            this.etag = "\"" + hash + "\"";
+            this.gzipEtag = "\"" + hash + "-" + GZIP + "\"";
+        }
+
+        private static byte[] gzip(byte[] data) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+                {
+                    // Compressed only once
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                gzip.write(data);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return out.size() < data.length * MIN_GZIP_RATIO ? out.toByteArray() : null;
+        }
+
+        private static String hash(byte[] data) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+                StringBuilder hash = new StringBuilder(16);
+                // The first 64 bits are good enough
+                for (int i = 0; i < 8; i++) {
+                    hash.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+                    hash.append(Character.forDigit(digest[i] & 0xF, 16));
+                }
+                return hash.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free variant of {@link DurationHistogram} with the same bucket layout. Unlike {@link DurationHistogram} the bucket array is allocated
+ * upfront, values greater than {@value #MAX_VALUE} are recorded as {@value #MAX_VALUE}.
+ * <p>
+ * Recording a value never blocks. A snapshot is not atomic, i.e. the values recorded concurrently may or may not be included.
+ */
+class ConcurrentDurationHistogram {
+
+    // E.g. more than 18 minutes if the durations are recorded in microseconds
+    static final long MAX_VALUE = (1L << 30) - 1;
+
+    private static final int BUCKETS = DurationHistogram.index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        counts.incrementAndGet(DurationHistogram.index(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     *
+     * @return the sum of all the recorded values
+     */
+    long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     *
+     * @return a snapshot of the recorded values
+     */
+    DurationHistogram snapshot() {
+        // Only copy the buckets up to the magnitude of the max value
+        long maxValue = max.get();
+        long[] snapshot = new long[DurationHistogram.index(maxValue) + 1];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return new DurationHistogram(snapshot, maxValue);
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+/**
+ * Forwards all the calls to a delegate which is obtained for each call.
+ */
+abstract class DelegatingJsonDataProvider implements AdapterJsonDataProvider {
+
+    /**
+     *
+     * @return the current delegate
+     */
+    protected abstract AdapterJsonDataProvider delegate();
+
+    @Override
+    public String receiveDeployment() {
+        return delegate().receiveDeployment();
+    }
+
+    @Override
+    public String receiveBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return delegate().receiveBeans(pageIndex, pageSize, filters, representation);
+    }
+
+    @Override
+    public String receiveBean(String id, boolean transientDependencies, boolean transientDependents) {
+        return delegate().receiveBean(id, transientDependencies, transientDependents);
+    }
+
+    @Override
+    public String receiveBeanInstance(String id) {
+        return delegate().receiveBeanInstance(id);
+    }
+
+    @Override
+    public String receiveObservers(int pageIndex, int pageSize, String filters, String representation) {
+        return delegate().receiveObservers(pageIndex, pageSize, filters, representation);
+    }
+
+    @Override
+    public String receiveObserver(String id) {
+        return delegate().receiveObserver(id);
+    }
+
+    @Override
+    public String receiveContexts() {
+        return delegate().receiveContexts();
+    }
+
+    @Override
+    public String receiveContext(String id) {
+        return delegate().receiveContext(id);
+    }
+
+    @Override
+    public String receiveInvocations(int pageIndex, int pageSize, String filters, String representation) {
+        return delegate().receiveInvocations(pageIndex, pageSize, filters, representation);
+    }
+
+    @Override
+    public String clearInvocations() {
+        return delegate().clearInvocations();
+    }
+
+    @Override
+    public String receiveInvocation(String id) {
+        return delegate().receiveInvocation(id);
+    }
+
+    @Override
+    public String receiveEvents(int pageIndex, int pageSize, String filters) {
+        return delegate().receiveEvents(pageIndex, pageSize, filters);
+    }
+
+    @Override
+    public String clearEvents() {
+        return delegate().clearEvents();
+    }
+
+    @Override
+    public String receiveMonitoringStats() {
+        return delegate().receiveMonitoringStats();
+    }
+
+    @Override
+    public String receiveAvailableBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return delegate().receiveAvailableBeans(pageIndex, pageSize, filters, representation);
+    }
+
+    @Override
+    public String receiveBeans(int pageIndex, int pageSize, String filters, String representation, String fields) {
+        return delegate().receiveBeans(pageIndex, pageSize, filters, representation, fields);
+    }
+
+    @Override
+    public String receiveObservers(int pageIndex, int pageSize, String filters, String representation, String fields) {
+        return delegate().receiveObservers(pageIndex, pageSize, filters, representation, fields);
+    }
+
+    @Override
+    public String receiveInvocations(int pageIndex, int pageSize, String filters, String representation, String fields) {
+        return delegate().receiveInvocations(pageIndex, pageSize, filters, representation, fields);
+    }
+
+    @Override
+    public void writeDetails(DetailBatch.Type type, Set<String> ids, Writer out) throws IOException {
+        delegate().writeDetails(type, ids, out);
+    }
+
+    @Override
+    public String receiveInvocationStats(String filters, String sort, int limit) {
+        return delegate().receiveInvocationStats(filters, sort, limit);
+    }
+
+    @Override
+    public void writeFoldedStacks(String filters, Writer out) throws IOException {
+        delegate().writeFoldedStacks(filters, out);
+    }
+
+    @Override
+    public String receiveEventTimeline(String filters, String groupBy, long interval) {
+        return delegate().receiveEventTimeline(filters, groupBy, interval);
+    }
+
+    @Override
+    public String receiveMonitoringHistory(String metric, long since, int points) {
+        return delegate().receiveMonitoringHistory(metric, since, points);
+    }
+
+    @Override
+    public String receiveBeanDependencies(String id, boolean dependents, int maxDepth) {
+        return delegate().receiveBeanDependencies(id, dependents, maxDepth);
+    }
+
+    @Override
+    public String receiveBeanPath(String fromId, String toId) {
+        return delegate().receiveBeanPath(fromId, toId);
+    }
+
+    @Override
+    public String receiveBeanRanking(String by, int limit) {
+        return delegate().receiveBeanRanking(by, limit);
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.TOTAL;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Streams the details of multiple beans, observers or invocations as a single JSON object, e.g.
+ * <code>{"data":[{"id":"1",...},{"id":"2",...}],"missing":["3"],"total":2}</code>. The items are written in the order of the requested ids as soon as
+ * they are available. The ids which do not identify any item are listed as missing.
+ * <p>
+ * This class is not thread-safe.
+ */
+class DetailBatch {
+
+    static final String IDS = "ids";
+
+    static final String MISSING = "missing";
+
+    static final int MAX_IDS = 1000;
+
+    private final Writer out;
+
+    private final List<String> missing;
+
+    private int total;
+
+    /**
+     * The beginning of the JSON object is written immediately.
+     *
+     * @param out
+     * @throws IOException
+     */
+    DetailBatch(Writer out) throws IOException {
+        this.out = out;
+        this.missing = new ArrayList<>();
+        out.write("{\"" + DATA + "\":[");
+    }
+
+    /**
+     *
+     * @param json the JSON representation of an item
+     * @throws IOException
+     */
+    void write(String json) throws IOException {
+        if (total > 0) {
+            out.write(',');
+        }
+        out.write(json);
+        total++;
+    }
+
+    void missing(String id) {
+        missing.add(id);
+    }
+
+    /**
+     * Writes the end of the JSON object and flushes the writer.
+     *
+     * @throws IOException
+     */
+    void end() throws IOException {
+        out.write("],\"" + MISSING + "\":[");
+        for (int i = 0; i < missing.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(new JsonPrimitive(missing.get(i)).toString());
+        }
+        out.write("],\"" + TOTAL + "\":" + total + "}");
+        out.flush();
+    }
+
+    /**
+     * The ids may be separated by commas or whitespace characters. Duplicate ids are ignored.
+     *
+     * @param ids
+     * @return the ordered set of ids
+     * @throws InvalidRequestException If no id is specified or the number of ids exceeds {@link #MAX_IDS}
+     */
+    static Set<String> parseIds(String ids) {
+        Set<String> parsed = new LinkedHashSet<>();
+        if (ids != null) {
+            for (String id : ids.split("[,\\s]+")) {
+                if (!id.isEmpty()) {
+                    parsed.add(id);
+                }
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new InvalidRequestException("No ids specified");
+        }
+        if (parsed.size() > MAX_IDS) {
+            throw new InvalidRequestException("Too many ids: " + parsed.size());
+        }
+        return parsed;
+    }
+
+    enum Type {
+
+        BEANS,
+        OBSERVERS,
+        INVOCATIONS,;
+
+        /**
+         * Beans are received with both the transitive dependencies and dependents, i.e. the same way the full representation of beans does.
+         *
+         * @param jsonDataProvider
+         * @param id
+         * @return the JSON representation of the detail
+         */
+        String receive(JsonDataProvider jsonDataProvider, String id) {
+            switch (this) {
+                case BEANS:
+                    return jsonDataProvider.receiveBean(id, true, true);
+                case OBSERVERS:
+                    return jsonDataProvider.receiveObserver(id);
+                case INVOCATIONS:
+                    return jsonDataProvider.receiveInvocation(id);
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+
+        /**
+         *
+         * @param value
+         * @return the type for the given value
+         * @throws InvalidRequestException If no type matches the given value
+         */
+        static Type from(String value) {
+            for (Type type : values()) {
+                if (type.toString().equalsIgnoreCase(value)) {
+                    return type;
+                }
+            }
+            throw new InvalidRequestException("Unsupported batch type: " + value);
+        }
+
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.util.Arrays;
+
+/**
+ * A log-linear histogram of non-negative durations. Values lower than {@value #SUB_BUCKETS} are recorded exactly, larger values are recorded with
+ * a relative error lower than 1/{@value #SUB_BUCKETS}. The bucket array only grows up to the magnitude of the largest value recorded so far.
+ * <p>
+ * This class is not thread-safe.
+ */
+class DurationHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private long[] counts;
+
+    private long count;
+
+    private long max;
+
+    DurationHistogram() {
+        this.counts = new long[SUB_BUCKETS];
+    }
+
+    /**
+     *
+     * @param counts the counts per bucket, see {@link #index(long)}
+     * @param max
+     */
+    DurationHistogram(long[] counts, long max) {
+        this.counts = counts;
+        this.max = max;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+    }
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int idx = index(value);
+        if (idx >= counts.length) {
+            counts = Arrays.copyOf(counts, idx + SUB_BUCKETS);
+        }
+        counts[idx]++;
+        count++;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds all the values recorded by the given histogram to this histogram.
+     *
+     * @param other
+     */
+    void add(DurationHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        if (other.max > max) {
+            max = other.max;
+        }
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    /**
+     *
+     * @param quantile the quantile, e.g. 0.95
+     * @return the highest value equivalent to the value at the given quantile, never greater than {@link #getMax()}
+     */
+    long getValueAtQuantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     *
+     * @param value
+     * @return the number of values lower than or equivalent to the given value
+     */
+    long getCountAtOrBelow(long value) {
+        long result = 0;
+        for (int i = 0, last = Math.min(index(Math.max(0, value)), counts.length - 1); i <= last; i++) {
+            result += counts[i];
+        }
+        return result;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.QUALIFIERS;
+import static org.jboss.weld.probe.Strings.TIMESTAMP;
+import static org.jboss.weld.probe.Strings.TOTAL;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Fired events bucketed by time and grouped by type, qualifiers or kind.
+ * <p>
+ * Only the timestamp and the group keys of an event are kept, in primitive arrays. The group keys are interned, i.e. each distinct key is stored
+ * once. Events may be added incrementally and the events older than a specific timestamp may be evicted if the events were added in chronological
+ * order. This class is not thread-safe.
+ */
+class EventTimeline {
+
+    static final String INTERVAL = "interval";
+
+    static final String GROUP_BY = "groupBy";
+
+    static final String KEY = "key";
+
+    static final String COUNT = "count";
+
+    static final String RATE = "rate";
+
+    static final String PEAK_RATE = "peakRate";
+
+    static final String PEAK_TS = "peakTs";
+
+    static final String START = "start";
+
+    static final String END = "end";
+
+    static final int MAX_BUCKETS = 10000;
+
+    // The default interval is the smallest one which results in at most 200 buckets
+    private static final long[] DEFAULT_INTERVALS = { 1000, 5000, 10000, 30000, 60000, 300000, 600000, 1800000, 3600000, 21600000, 86400000 };
+
+    private static final int DEFAULT_BUCKETS = 200;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+
+    private final int[][] keys = new int[GroupBy.values().length][INITIAL_CAPACITY];
+
+    private final List<Map<String, Integer>> keyIds = new ArrayList<>();
+
+    private final List<List<String>> keyNames = new ArrayList<>();
+
+    // Index of the first event which was not evicted
+    private int head;
+
+    private int size;
+
+    EventTimeline() {
+        for (int i = 0; i < GroupBy.values().length; i++) {
+            keyIds.add(new HashMap<>());
+            keyNames.add(new ArrayList<>());
+        }
+    }
+
+    static EventTimeline of(Iterable<? extends JsonElement> events) {
+        EventTimeline timeline = new EventTimeline();
+        for (JsonElement event : events) {
+            timeline.add(event.getAsJsonObject());
+        }
+        return timeline;
+    }
+
+    void add(JsonObject event) {
+        if (!event.has(TIMESTAMP)) {
+            return;
+        }
+        if (size == timestamps.length) {
+            grow();
+        }
+        timestamps[size] = event.get(TIMESTAMP).getAsLong();
+        for (GroupBy groupBy : GroupBy.values()) {
+            keys[groupBy.ordinal()][size] = keyId(groupBy, groupBy.key.apply(event));
+        }
+        size++;
+    }
+
+    /**
+     *
+     * @param timestamp
+     * @return the number of evicted events
+     */
+    int evictBefore(long timestamp) {
+        int evicted = 0;
+        while (head < size && timestamps[head] < timestamp) {
+            head++;
+            evicted++;
+        }
+        return evicted;
+    }
+
+    int size() {
+        return size - head;
+    }
+
+    /**
+     *
+     * @param groupBy
+     * @param interval the bucket interval in milliseconds, if not positive a default interval is used
+     * @return the JSON representation
+     * @throws InvalidRequestException If the interval results in too many buckets
+     */
+    String toJson(GroupBy groupBy, long interval) {
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for (int i = head; i < size; i++) {
+            start = Math.min(start, timestamps[i]);
+            end = Math.max(end, timestamps[i]);
+        }
+        JsonObject timeline = new JsonObject();
+        timeline.addProperty(GROUP_BY, groupBy.toString().toLowerCase());
+        timeline.addProperty(TOTAL, size());
+        JsonArray data = new JsonArray();
+        if (size() == 0) {
+            timeline.addProperty(INTERVAL, interval > 0 ? interval : DEFAULT_INTERVALS[0]);
+            timeline.add(DATA, data);
+            return timeline.toString();
+        }
+        if (interval <= 0) {
+            interval = defaultInterval(end - start);
+        }
+        // Align the buckets so that the bucket timestamps are "nice"
+        start = start - (start % interval);
+        long buckets = (end - start) / interval + 1;
+        if (buckets > MAX_BUCKETS) {
+            throw new InvalidRequestException("Too many buckets, use a greater interval: " + buckets);
+        }
+        int[] groupKeys = keys[groupBy.ordinal()];
+        List<String> names = keyNames.get(groupBy.ordinal());
+        int[][] counts = new int[names.size()][];
+        int[] totals = new int[names.size()];
+        for (int i = head; i < size; i++) {
+            int key = groupKeys[i];
+            if (counts[key] == null) {
+                counts[key] = new int[(int) buckets];
+            }
+            counts[key][(int) ((timestamps[i] - start) / interval)]++;
+            totals[key]++;
+        }
+        double seconds = interval / (double) TimeUnit.SECONDS.toMillis(1);
+        // Sort by total count in descending order
+        Integer[] sorted = new Integer[names.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (k1, k2) -> Integer.compare(totals[k2], totals[k1]));
+        for (Integer key : sorted) {
+            if (counts[key] == null) {
+                continue;
+            }
+            JsonObject series = new JsonObject();
+            series.addProperty(KEY, names.get(key));
+            series.addProperty(TOTAL, totals[key]);
+            JsonArray seriesBuckets = new JsonArray();
+            int peak = -1;
+            for (int i = 0; i < counts[key].length; i++) {
+                int count = counts[key][i];
+                if (count == 0) {
+                    // Only non-empty buckets are listed
+                    continue;
+                }
+                if (peak == -1 || count > counts[key][peak]) {
+                    peak = i;
+                }
+                JsonObject bucket = new JsonObject();
+                bucket.addProperty(TIMESTAMP, start + i * interval);
+                bucket.addProperty(COUNT, count);
+                bucket.addProperty(RATE, rate(count, seconds));
+                seriesBuckets.add(bucket);
+            }
+            series.addProperty(PEAK_RATE, rate(counts[key][peak], seconds));
+            series.addProperty(PEAK_TS, start + peak * interval);
+            series.add(DATA, seriesBuckets);
+            data.add(series);
+        }
+        timeline.addProperty(INTERVAL, interval);
+        timeline.addProperty(START, start);
+        timeline.addProperty(END, start + buckets * interval);
+        timeline.add(DATA, data);
+        return timeline.toString();
+    }
+
+    private int keyId(GroupBy groupBy, String key) {
+        Map<String, Integer> ids = keyIds.get(groupBy.ordinal());
+        Integer id = ids.get(key);
+        if (id == null) {
+            List<String> names = keyNames.get(groupBy.ordinal());
+            id = names.size();
+            names.add(key);
+            ids.put(key, id);
+        }
+        return id;
+    }
+
+    private void grow() {
+        if (head > 0 && head >= size / 2) {
+            // Reclaim the space of evicted events first
+            System.arraycopy(timestamps, head, timestamps, 0, size - head);
+            for (int[] groupKeys : keys) {
+                System.arraycopy(groupKeys, head, groupKeys, 0, size - head);
+            }
+            size -= head;
+            head = 0;
+            return;
+        }
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = Arrays.copyOf(keys[i], capacity);
+        }
+    }
+
+    private static double rate(int count, double seconds) {
+        // Events per second, rounded to three decimal places
+        return Math.round(count / seconds * 1000) / 1000.0;
+    }
+
+    private static long defaultInterval(long duration) {
+        for (long interval : DEFAULT_INTERVALS) {
+            if (duration / interval < DEFAULT_BUCKETS) {
+                return interval;
+            }
+        }
+        return DEFAULT_INTERVALS[DEFAULT_INTERVALS.length - 1];
+    }
+
+    enum GroupBy {
+
+        TYPE(event -> event.has(Strings.TYPE) ? event.get(Strings.TYPE).getAsString() : ""),
+        QUALIFIERS(EventTimeline::getQualifiers),
+        KIND(event -> event.has(Strings.KIND) ? event.get(Strings.KIND).getAsString() : ""),;
+
+        private final Function<JsonObject, String> key;
+
+        private GroupBy(Function<JsonObject, String> key) {
+            this.key = key;
+        }
+
+        /**
+         *
+         * @param value
+         * @return the group for the given value, {@link #TYPE} if the value is <code>null</code> or empty
+         * @throws InvalidRequestException If no group matches the given value
+         */
+        static GroupBy from(String value) {
+            if (value == null || value.isEmpty()) {
+                return TYPE;
+            }
+            for (GroupBy groupBy : values()) {
+                if (groupBy.toString().equalsIgnoreCase(value)) {
+                    return groupBy;
+                }
+            }
+            throw new InvalidRequestException("Unsupported groupBy: " + value);
+        }
+
+    }
+
+    private static String getQualifiers(JsonObject event) {
+        if (!event.has(QUALIFIERS) || !event.get(QUALIFIERS).isJsonArray() || event.get(QUALIFIERS).getAsJsonArray().size() == 0) {
+            return "@Default";
+        }
+        StringBuilder qualifiers = new StringBuilder();
+        for (JsonElement qualifier : event.get(QUALIFIERS).getAsJsonArray()) {
+            if (qualifiers.length() > 0) {
+                qualifiers.append(' ');
+            }
+            qualifiers.append(qualifier.getAsString());
+        }
+        return qualifiers.toString();
+    }
+
+}
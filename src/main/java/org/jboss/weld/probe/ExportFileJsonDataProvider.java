@@ -45,6 +45,7 @@ import static org.jboss.weld.probe.Strings.RECEPTION;
 import static org.jboss.weld.probe.Strings.SCOPE;
 import static org.jboss.weld.probe.Strings.SEARCH;
 import static org.jboss.weld.probe.Strings.STEREOTYPES;
+import static org.jboss.weld.probe.Strings.TIME;
 import static org.jboss.weld.probe.Strings.TOTAL;
 import static org.jboss.weld.probe.Strings.TX_PHASE;
 import static org.jboss.weld.probe.Strings.TYPE;
@@ -55,10 +56,25 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.Writer;
 import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -82,10 +98,12 @@ import com.google.gson.JsonParser;
  *
  * @author Martin Kouba
  */
-class ExportFileJsonDataProvider implements JsonDataProvider {
+class ExportFileJsonDataProvider implements AdapterJsonDataProvider {
 
     private static final int DEFAULT_BUFFER_SIZE = 2048;
 
+    private static final int MAX_LOADING_THREADS = 4;
+
     private static final Logger LOGGER = Logger.getLogger(ExportFileJsonDataProvider.class.getName());
 
     private final String deploymentJson;
@@ -96,6 +114,8 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
     private final Map<String, String> bdasMap = new HashMap<>();
 
+    private final Map<String, LoadedEntry> loadedEntries = new ConcurrentHashMap<>();
+
     private final JsonArray beans;
 
     private final JsonArray observers;
@@ -104,38 +124,104 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
     private final JsonArray invocations;
 
+    private final BeanGraph beanGraph;
+
+    // Id -> item
+    private final Map<String, JsonObject> beansIndex;
+
+    private final Map<String, JsonObject> observersIndex;
+
+    private final Map<String, JsonObject> invocationsIndex;
+
+    // Computed lazily
+    private volatile InvocationStats invocationStats;
+
+    // Computed lazily
+    private volatile EventTimeline eventTimeline;
+
     ExportFileJsonDataProvider(File exportFile) {
-        try (ZipFile zip = new ZipFile(exportFile)) {
-            // DEPLOYMENT
-            deploymentJson = readToString(zip, "deployment.json");
-            JsonElement deploymentElement = readToJson(zip, "deployment.json");
-            if (deploymentElement != null) {
-                deploymentElement.getAsJsonObject().get("bdas").getAsJsonArray()
-                        .forEach(bda -> bdasMap.put(bda.getAsJsonObject().get(ID).getAsString(), bda.getAsJsonObject().get(BDA_ID).getAsString()));
-            }
-            // CONTEXTS
-            JsonElement contextsElement = readToJson(zip, "contexts.json");
+        this(exportFile, null);
+    }
+
+    /**
+     * The parsed data of the entries which did not change since the previous data were loaded (the same CRC-32 and size) are reused.
+     *
+     * @param exportFile
+     * @param previous the data previously loaded from the same export file, may be <code>null</code>
+     */
+    ExportFileJsonDataProvider(File exportFile, ExportFileJsonDataProvider previous) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(Runtime.getRuntime().availableProcessors(), MAX_LOADING_THREADS),
+                new LoadingThreadFactory());
+        // The strings repeated across all the entries are deduplicated
+        StringPool pool = new StringPool();
+        try {
+            // Each entry is inflated and parsed by a separate job with its own zip file handle
+            Future<String> deploymentFuture = executor
+                    .submit(loadEntry(exportFile, previous, "deployment.json", ExportFileJsonDataProvider::readToString));
+            Future<JsonElement> contextsFuture = executor
+                    .submit(loadEntry(exportFile, previous, "contexts.json", (zip, name) -> readToJson(zip, name, pool)));
+            Future<JsonArray> beansFuture = executor
+                    .submit(loadEntry(exportFile, previous, "beans.json", (zip, name) -> readDataToJson(zip, name, pool)));
+            Future<JsonArray> observersFuture = executor
+                    .submit(loadEntry(exportFile, previous, "observers.json", (zip, name) -> readDataToJson(zip, name, pool)));
+            Future<JsonArray> eventsFuture = executor
+                    .submit(loadEntry(exportFile, previous, "fired-events.json", (zip, name) -> readDataToJson(zip, name, pool)));
+            Future<JsonArray> invocationsFuture = executor
+                    .submit(loadEntry(exportFile, previous, "invocation-trees.json", (zip, name) -> readDataToJson(zip, name, pool)));
+            // CONTEXTS - context data entries are only known once contexts.json is parsed
+            JsonElement contextsElement = await(contextsFuture, exportFile);
             if (contextsElement != null) {
                 contexts = contextsElement.getAsJsonArray();
             } else {
                 contexts = new JsonArray();
             }
+            Map<String, Future<JsonElement>> contextFutures = new LinkedHashMap<>();
             for (JsonElement ctx : contexts) {
-                JsonElement ctxDataElement = readToJson(zip, "context-" + ctx.getAsJsonObject().get("id").getAsString() + ".json");
-                if (ctxDataElement != null) {
-                    contextsMap.put(ctx.getAsJsonObject().get("id").getAsString(), ctxDataElement);
-                }
+                String id = ctx.getAsJsonObject().get("id").getAsString();
+                contextFutures.put(id,
+                        executor.submit(loadEntry(exportFile, previous, "context-" + id + ".json", (zip, name) -> readToJson(zip, name, pool))));
+            }
+            // DEPLOYMENT
+            deploymentJson = await(deploymentFuture, exportFile);
+            if (deploymentJson != null) {
+                new JsonParser().parse(deploymentJson).getAsJsonObject().get("bdas").getAsJsonArray()
+                        .forEach(bda -> bdasMap.put(bda.getAsJsonObject().get(ID).getAsString(), bda.getAsJsonObject().get(BDA_ID).getAsString()));
             }
             // BEANS
-            this.beans = readDataToJson(zip, "beans.json");
+            this.beans = await(beansFuture, exportFile);
+            if (previous != null && previous.beans == beans) {
+                // beans.json did not change
+                this.beanGraph = previous.beanGraph;
+                this.beansIndex = previous.beansIndex;
+            } else {
+                this.beansIndex = index(beans);
+                long start = System.currentTimeMillis();
+                this.beanGraph = beans != null ? BeanGraph.of(beans) : null;
+                if (beanGraph != null) {
+                    LOGGER.info(String.format("Bean graph with %s beans and %s edges built in %s ms", beanGraph.size(), beanGraph.edges(),
+                            System.currentTimeMillis() - start));
+                }
+            }
             // OBSERVERS
-            this.observers = readDataToJson(zip, "observers.json");
+            this.observers = await(observersFuture, exportFile);
+            this.observersIndex = previous != null && previous.observers == observers ? previous.observersIndex : index(observers);
             // EVENTS
-            this.events = readDataToJson(zip, "fired-events.json");
+            this.events = await(eventsFuture, exportFile);
             // INVOCATIONS
-            this.invocations = readDataToJson(zip, "invocation-trees.json");
-        } catch (IOException e) {
-            throw new IllegalStateException("Cannot load export file: " + exportFile, e);
+            this.invocations = await(invocationsFuture, exportFile);
+            this.invocationsIndex = previous != null && previous.invocations == invocations ? previous.invocationsIndex : index(invocations);
+            for (Entry<String, Future<JsonElement>> entry : contextFutures.entrySet()) {
+                JsonElement ctxDataElement = await(entry.getValue(), exportFile);
+                if (ctxDataElement != null) {
+                    contextsMap.put(entry.getKey(), ctxDataElement);
+                }
+            }
+            if (pool.getDuplicates() > 0) {
+                LOGGER.info(String.format("%s duplicate strings deduplicated to %s distinct strings, approx. %s kB of heap saved", pool.getDuplicates(),
+                        pool.size(), pool.getSavedBytes() / 1024));
+            }
+        } finally {
+            executor.shutdownNow();
         }
     }
 
@@ -146,36 +232,34 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
     @Override
     public String receiveBeans(int pageIndex, int pageSize, String filters, String representation) {
-        // Representation is ignored ATM
+        return receiveBeans(pageIndex, pageSize, filters, representation, null);
+    }
+
+    @Override
+    public String receiveBeans(int pageIndex, int pageSize, String filters, String representation, String fields) {
         Page<JsonObject> page = Queries.find(
                 StreamSupport.stream(beans.spliterator(), false).map(element -> element.getAsJsonObject()).collect(Collectors.toList()), pageIndex, pageSize,
                 Queries.initFilters(filters, new ExportBeanFilters(bdasMap)));
+        Set<String> projection = JsonProjection.forBeans(representation, fields);
         JsonArray data = new JsonArray();
-        page.getData().forEach(bean -> data.add(bean));
+        page.getData().forEach(bean -> data.add(JsonProjection.projectBean(bean, projection)));
         return encodePage(page, data);
     }
 
     @Override
     public String receiveBean(String id, boolean transientDependencies, boolean transientDependents) {
-        for (JsonElement bean : beans) {
-            JsonElement idElement = bean.getAsJsonObject().get(ID);
-            if (idElement != null && idElement.getAsString().equals(id)) {
-                if (!transientDependents) {
-                    JsonElement dependents = bean.getAsJsonObject().get(Strings.DEPENDENTS);
-                    if (dependents != null) {
-                        dependents.getAsJsonArray().forEach(dependent -> dependent.getAsJsonObject().remove(Strings.DEPENDENTS));
-                    }
-                }
-                if (!transientDependencies) {
-                    JsonElement dependencies = bean.getAsJsonObject().get(Strings.DEPENDENCIES);
-                    if (dependencies != null) {
-                        dependencies.getAsJsonArray().forEach(dependency -> dependency.getAsJsonObject().remove(Strings.DEPENDENCIES));
-                    }
-                }
-                return bean.toString();
-            }
+        JsonObject bean = beansIndex.get(id);
+        if (bean == null) {
+            throw new IllegalStateException("No bean found for: " + id);
+        }
+        // The shared data must not be modified
+        if (!transientDependents) {
+            bean = JsonProjection.withoutTransitive(bean, Strings.DEPENDENTS);
         }
-        throw new IllegalStateException("No bean found for: " + id);
+        if (!transientDependencies) {
+            bean = JsonProjection.withoutTransitive(bean, Strings.DEPENDENCIES);
+        }
+        return bean.toString();
     }
 
     @Override
@@ -185,22 +269,25 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
     @Override
     public String receiveObservers(int pageIndex, int pageSize, String filters, String representation) {
-        // Representation is ignored ATM
+        return receiveObservers(pageIndex, pageSize, filters, representation, null);
+    }
+
+    @Override
+    public String receiveObservers(int pageIndex, int pageSize, String filters, String representation, String fields) {
         Page<JsonObject> page = Queries.find(
                 StreamSupport.stream(observers.spliterator(), false).map(element -> element.getAsJsonObject()).collect(Collectors.toList()), pageIndex,
                 pageSize, Queries.initFilters(filters, new ExportObserversFilters(bdasMap)));
+        Set<String> projection = JsonProjection.forObservers(representation, fields);
         JsonArray data = new JsonArray();
-        page.getData().forEach(bean -> data.add(bean));
+        page.getData().forEach(observer -> data.add(JsonProjection.project(observer, projection)));
         return encodePage(page, data);
     }
 
     @Override
     public String receiveObserver(String id) {
-        for (JsonElement observer : observers) {
-            JsonElement idElement = observer.getAsJsonObject().get(ID);
-            if (idElement != null && idElement.getAsString().equals(id)) {
-                return observer.toString();
-            }
+        JsonObject observer = observersIndex.get(id);
+        if (observer != null) {
+            return observer.toString();
         }
         throw new IllegalStateException("No observer found for: " + id);
     }
@@ -217,12 +304,18 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
     @Override
     public String receiveInvocations(int pageIndex, int pageSize, String filters, String representation) {
-        // Representation is ignored ATM
+        return receiveInvocations(pageIndex, pageSize, filters, representation, null);
+    }
+
+    @Override
+    public String receiveInvocations(int pageIndex, int pageSize, String filters, String representation, String fields) {
         Page<JsonObject> page = Queries.find(
                 StreamSupport.stream(invocations.spliterator(), false).map(element -> element.getAsJsonObject()).collect(Collectors.toList()), pageIndex,
                 pageSize, Queries.initFilters(filters, new ExportInvocationsFilters()));
+        // The children are only serialized for the full representation
+        Set<String> projection = JsonProjection.forInvocations(representation, fields);
         JsonArray data = new JsonArray();
-        page.getData().forEach(bean -> data.add(bean));
+        page.getData().forEach(invocation -> data.add(JsonProjection.project(invocation, projection)));
         return encodePage(page, data);
     }
 
@@ -233,11 +326,9 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
     @Override
     public String receiveInvocation(String id) {
-        for (JsonElement invocation : invocations) {
-            JsonElement idElement = invocation.getAsJsonObject().get(ID);
-            if (idElement != null && idElement.getAsString().equals(id)) {
-                return invocation.toString();
-            }
+        JsonObject invocation = invocationsIndex.get(id);
+        if (invocation != null) {
+            return invocation.toString();
         }
         throw new IllegalStateException("No invocation found for: " + id);
     }
@@ -267,6 +358,153 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void writeDetails(DetailBatch.Type type, Set<String> ids, Writer out) throws IOException {
+        Map<String, JsonObject> index;
+        switch (type) {
+            case BEANS:
+                index = beansIndex;
+                break;
+            case OBSERVERS:
+                index = observersIndex;
+                break;
+            case INVOCATIONS:
+                index = invocationsIndex;
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+        DetailBatch batch = new DetailBatch(out);
+        for (String id : ids) {
+            JsonObject detail = index.get(id);
+            if (detail != null) {
+                batch.write(detail.toString());
+            } else {
+                batch.missing(id);
+            }
+        }
+        batch.end();
+    }
+
+    @Override
+    public String receiveInvocationStats(String filters, String sort, int limit) {
+        InvocationStats.Sort statsSort = InvocationStats.Sort.from(sort);
+        ExportInvocationsFilters invocationsFilters = Queries.initFilters(filters, new ExportInvocationsFilters());
+        if (invocationsFilters != null && !invocationsFilters.isEmpty()) {
+            return InvocationStats.of(find(invocations, invocationsFilters)).toJson(statsSort, limit);
+        }
+        return getInvocationStats().toJson(statsSort, limit);
+    }
+
+    @Override
+    public void writeFoldedStacks(String filters, Writer out) throws IOException {
+        for (JsonObject invocation : findInvocations(filters)) {
+            FoldedStacks.write(invocation, out);
+        }
+    }
+
+    @Override
+    public String receiveEventTimeline(String filters, String groupBy, long interval) {
+        EventTimeline.GroupBy timelineGroupBy = EventTimeline.GroupBy.from(groupBy);
+        ExportEventsFilters eventsFilters = Queries.initFilters(filters, new ExportEventsFilters());
+        if (eventsFilters != null && !eventsFilters.isEmpty()) {
+            return EventTimeline.of(find(events, eventsFilters)).toJson(timelineGroupBy, interval);
+        }
+        return getEventTimeline().toJson(timelineGroupBy, interval);
+    }
+
+    private EventTimeline getEventTimeline() {
+        EventTimeline timeline = eventTimeline;
+        if (timeline == null) {
+            synchronized (this) {
+                timeline = eventTimeline;
+                if (timeline == null) {
+                    timeline = EventTimeline.of(events);
+                    eventTimeline = timeline;
+                }
+            }
+        }
+        return timeline;
+    }
+
+    @Override
+    public String receiveBeanDependencies(String id, boolean dependents, int maxDepth) {
+        return getBeanGraph().getTransitive(id, dependents, maxDepth);
+    }
+
+    @Override
+    public String receiveBeanPath(String fromId, String toId) {
+        return getBeanGraph().getShortestPath(fromId, toId);
+    }
+
+    @Override
+    public String receiveBeanRanking(String by, int limit) {
+        if (by == null || by.isEmpty() || BeanGraph.FAN_IN.equalsIgnoreCase(by)) {
+            return getBeanGraph().getRanking(true, limit);
+        } else if (BeanGraph.FAN_OUT.equalsIgnoreCase(by)) {
+            return getBeanGraph().getRanking(false, limit);
+        }
+        throw new InvalidRequestException("Unsupported ranking: " + by);
+    }
+
+    private BeanGraph getBeanGraph() {
+        if (beanGraph == null) {
+            throw new ResourceNotAvailableException();
+        }
+        return beanGraph;
+    }
+
+    private InvocationStats getInvocationStats() {
+        InvocationStats stats = invocationStats;
+        if (stats == null) {
+            synchronized (this) {
+                stats = invocationStats;
+                if (stats == null) {
+                    // The data never change so the statistics are only computed once
+                    stats = InvocationStats.of(invocations);
+                    invocationStats = stats;
+                }
+            }
+        }
+        return stats;
+    }
+
+    List<JsonObject> findBeans(String filters) {
+        return find(beans, Queries.initFilters(filters, new ExportBeanFilters(bdasMap)));
+    }
+
+    List<JsonObject> findObservers(String filters) {
+        return find(observers, Queries.initFilters(filters, new ExportObserversFilters(bdasMap)));
+    }
+
+    List<JsonObject> findEvents(String filters) {
+        return find(events, Queries.initFilters(filters, new ExportEventsFilters()));
+    }
+
+    List<JsonObject> findInvocations(String filters) {
+        return find(invocations, Queries.initFilters(filters, new ExportInvocationsFilters()));
+    }
+
+    private static Map<String, JsonObject> index(JsonArray elements) {
+        if (elements == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, JsonObject> index = new HashMap<>(elements.size() * 2);
+        for (JsonElement element : elements) {
+            JsonElement idElement = element.getAsJsonObject().get(ID);
+            if (idElement != null) {
+                index.put(idElement.getAsString(), element.getAsJsonObject());
+            }
+        }
+        return index;
+    }
+
+    private static List<JsonObject> find(JsonArray elements, ExportFilters filters) {
+        // Page size 0 means no paging
+        return Queries.find(StreamSupport.stream(elements.spliterator(), false).map(element -> element.getAsJsonObject()).collect(Collectors.toList()), 0,
+                0, filters).getData();
+    }
+
     private String encodePage(Page<JsonObject> page, JsonArray data) {
         JsonObject pageData = new JsonObject();
         pageData.addProperty(PAGE, page.getIdx());
@@ -276,7 +514,43 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
         return pageData.toString();
     }
 
-    private String readToString(ZipFile zip, String zipEntryName) throws IOException {
+    private <T> Callable<T> loadEntry(File exportFile, ExportFileJsonDataProvider previous, String zipEntryName, EntryReader<T> reader) {
+        return () -> {
+            long start = System.nanoTime();
+            try (ZipFile zip = new ZipFile(exportFile)) {
+                ZipEntry entry = zip.getEntry(zipEntryName);
+                if (entry != null && previous != null) {
+                    LoadedEntry loaded = previous.loadedEntries.get(zipEntryName);
+                    if (loaded != null && loaded.isUnchanged(entry)) {
+                        loadedEntries.put(zipEntryName, loaded);
+                        LOGGER.info(zipEntryName + " not changed - previous data reused");
+                        @SuppressWarnings("unchecked")
+                        T value = (T) loaded.value;
+                        return value;
+                    }
+                }
+                T value = reader.read(zip, zipEntryName);
+                if (entry != null) {
+                    loadedEntries.put(zipEntryName, new LoadedEntry(entry, value));
+                    LOGGER.info(zipEntryName + " loaded in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                }
+                return value;
+            }
+        };
+    }
+
+    private static <T> T await(Future<T> future, File exportFile) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading export file: " + exportFile, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot load export file: " + exportFile, e.getCause());
+        }
+    }
+
+    private static String readToString(ZipFile zip, String zipEntryName) throws IOException {
         ZipEntry entry = zip.getEntry(zipEntryName);
         if (entry != null) {
             return readToString(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8), DEFAULT_BUFFER_SIZE);
@@ -285,21 +559,23 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
         return null;
     }
 
-    private JsonElement readToJson(ZipFile zip, String zipEntryName) throws IOException {
+    private static JsonElement readToJson(ZipFile zip, String zipEntryName, StringPool pool) throws IOException {
         ZipEntry entry = zip.getEntry(zipEntryName);
         if (entry != null) {
-            return new JsonParser().parse(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8));
+            try (Reader reader = new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8)) {
+                return pool.parse(reader);
+            }
         }
         jsonDataNotAvailable(zipEntryName);
         return null;
     }
 
-    private JsonArray readDataToJson(ZipFile zip, String zipEntryName) throws IOException {
-        JsonElement element = readToJson(zip, zipEntryName);
+    private static JsonArray readDataToJson(ZipFile zip, String zipEntryName, StringPool pool) throws IOException {
+        JsonElement element = readToJson(zip, zipEntryName, pool);
         return element != null ? element.getAsJsonObject().get("data").getAsJsonArray() : new JsonArray();
     }
 
-    private void jsonDataNotAvailable(String zipEntryName) {
+    private static void jsonDataNotAvailable(String zipEntryName) {
         LOGGER.warning(zipEntryName + " data not available");
     }
 
@@ -328,6 +604,47 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
         }
     }
 
+    @FunctionalInterface
+    private interface EntryReader<T> {
+
+        T read(ZipFile zip, String zipEntryName) throws IOException;
+
+    }
+
+    private static class LoadedEntry {
+
+        private final long crc;
+
+        private final long size;
+
+        private final Object value;
+
+        LoadedEntry(ZipEntry entry, Object value) {
+            this.crc = entry.getCrc();
+            this.size = entry.getSize();
+            this.value = value;
+        }
+
+        boolean isUnchanged(ZipEntry entry) {
+            // CRC-32 and size are unknown (-1) for some entries
+            return crc != -1 && size != -1 && crc == entry.getCrc() && size == entry.getSize();
+        }
+
+    }
+
+    private static class LoadingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger idx = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "weld-probe-export-loader-" + idx.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
     static abstract class ExportFilters extends Filters<JsonObject> {
 
         private final Map<String, String> bdasMap;
@@ -420,6 +737,8 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
     static class ExportInvocationsFilters extends ExportFilters {
 
+        static final String MIN_TIME = "minTime";
+
         private String beanClass;
 
         private String methodName;
@@ -428,23 +747,18 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
         private String description;
 
+        private Long minTime;
+
         ExportInvocationsFilters() {
             super(null);
         }
 
         @Override
         boolean test(JsonObject invocation) {
-            String beanClassValue = "";
-            if (beanClass != null) {
-                if (invocation.has(DECLARING_CLASS)) {
-                    beanClassValue = invocation.get(DECLARING_CLASS).getAsString();
-                } else if (invocation.has(INTERCEPTED_BEAN)) {
-                    beanClassValue = invocation.get(INTERCEPTED_BEAN).getAsJsonObject().get(BEAN_CLASS).getAsString();
-                }
-            }
-            return testSearch(search, invocation) && testContainsIgnoreCase(beanClass, beanClassValue)
+            return testSearch(search, invocation) && testContainsIgnoreCase(beanClass, beanClass != null ? getBeanClass(invocation) : "")
                     && testContainsIgnoreCase(methodName, invocation.has(METHOD_NAME) ? invocation.get(METHOD_NAME).getAsString() : "")
-                    && testContainsIgnoreCase(description, invocation.has(DESCRIPTION) ? invocation.get(DESCRIPTION).getAsString() : "");
+                    && testContainsIgnoreCase(description, invocation.has(DESCRIPTION) ? invocation.get(DESCRIPTION).getAsString() : "")
+                    && testMinTime(minTime, invocation);
         }
 
         @Override
@@ -457,15 +771,61 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
                 search = value;
             } else if (DESCRIPTION.equals(name)) {
                 description = value;
+            } else if (MIN_TIME.equals(name)) {
+                // An unusable value is ignored, i.e. no filter is applied
+                minTime = parseMinTime(value);
+            }
+        }
+
+        /**
+         *
+         * @param filters
+         * @throws IllegalArgumentException if the minTime filter is specified but is not a non-negative number
+         */
+        static void validate(String filters) {
+            Queries.initFilters(filters, new ExportInvocationsFilters() {
+                @Override
+                void processFilter(String name, String value) {
+                    if (MIN_TIME.equals(name) && parseMinTime(value) == null) {
+                        throw new IllegalArgumentException("Invalid value of the " + MIN_TIME + " filter: " + value + " - a number of milliseconds is expected");
+                    }
+                    super.processFilter(name, value);
+                }
+            });
+        }
+
+        private static Long parseMinTime(String value) {
+            try {
+                long parsed = Long.parseLong(value.trim());
+                return parsed >= 0 ? parsed : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        boolean testMinTime(Long minTime, JsonObject invocation) {
+            if (minTime == null) {
+                return true;
+            }
+            return invocation.has(TIME) && invocation.get(TIME).getAsLong() >= minTime;
+        }
+
+        private String getBeanClass(JsonObject invocation) {
+            if (invocation.has(DECLARING_CLASS)) {
+                return invocation.get(DECLARING_CLASS).getAsString();
+            } else if (invocation.has(INTERCEPTED_BEAN)) {
+                return invocation.get(INTERCEPTED_BEAN).getAsJsonObject().get(BEAN_CLASS).getAsString();
             }
+            return "";
         }
 
         boolean testSearch(String search, JsonObject invocation) {
             if (search == null) {
                 return true;
             }
-            if (containsIgnoreCase(search, invocation.has(BEAN_CLASS) ? invocation.get(BEAN_CLASS).getAsString() : null)
-                    || containsIgnoreCase(search, invocation.has(METHOD_NAME) ? invocation.get(METHOD_NAME).getAsString() : null)) {
+            // An exported invocation does not have the beanClass member - use the same value as the beanClass filter
+            if (containsIgnoreCase(search, getBeanClass(invocation))
+                    || containsIgnoreCase(search, invocation.has(METHOD_NAME) ? invocation.get(METHOD_NAME).getAsString() : "")) {
                 return true;
             }
             if (invocation.has(CHILDREN)) {
@@ -480,13 +840,13 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
 
         @Override
         public String toString() {
-            return String.format("ExportInvocationsFilters [beanClass=%s, methodName=%s, search=%s, description=%s]", beanClass, methodName, search,
-                    description);
+            return String.format("ExportInvocationsFilters [beanClass=%s, methodName=%s, search=%s, description=%s, minTime=%s]", beanClass, methodName,
+                    search, description, minTime);
         }
 
         @Override
         boolean isEmpty() {
-            return beanClass == null && methodName == null && search == null && description == null;
+            return beanClass == null && methodName == null && search == null && description == null && minTime == null;
         }
 
     }
@@ -654,7 +1014,7 @@ class ExportFileJsonDataProvider implements JsonDataProvider {
         @Override
         boolean isEmpty() {
             return kind == null && beanClass == null && beanType == null && qualifier == null && scope == null && bda == null && isAlternative == null
-                    && stereotypes == null && !unused;
+                    && stereotypes == null && unused == null;
         }
 
     }
@@ -0,0 +1,330 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * An index of export files found in a directory.
+ * <p>
+ * A data provider for a specific export file is loaded on first access. The least recently used providers are evicted once the estimated heap
+ * retained by all loaded providers exceeds the configured budget.
+ */
+class ExportFileRegistry {
+
+    static final String EXPORT_FILE_SUFFIX = ".zip";
+
+    // Rough ratio between the uncompressed JSON data and the heap retained by the parsed Gson tree
+    private static final int JSON_TREE_OVERHEAD_FACTOR = 6;
+
+    private static final Logger LOGGER = Logger.getLogger(ExportFileRegistry.class.getName());
+
+    private final File directory;
+
+    private final long maxRetainedSize;
+
+    private final Map<String, File> exports;
+
+    // Access-ordered, i.e. the eldest entry is the least recently used one
+    private final LinkedHashMap<String, LoadedExport> loaded = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long retainedSize;
+
+    /**
+     *
+     * @param directory
+     * @param maxRetainedSize the heap budget in bytes
+     */
+    ExportFileRegistry(File directory, long maxRetainedSize) {
+        this.directory = directory;
+        this.maxRetainedSize = maxRetainedSize;
+        this.exports = new ConcurrentSkipListMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXPORT_FILE_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.canRead()) {
+                    exports.put(toUniqueName(file, exports), file);
+                }
+            }
+        }
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    /**
+     *
+     * @return the sorted set of export names, each name may be used as a path segment
+     */
+    Set<String> getNames() {
+        return exports.keySet();
+    }
+
+    File getFile(String name) {
+        return exports.get(name);
+    }
+
+    /**
+     *
+     * @param exportFile
+     * @return the name of the given export file or <code>null</code> if no such file is registered
+     */
+    String getName(File exportFile) {
+        for (Entry<String, File> entry : exports.entrySet()) {
+            if (entry.getValue().equals(exportFile)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @param exportFile
+     * @return the name of the added export file
+     */
+    synchronized String add(File exportFile) {
+        String name = toUniqueName(exportFile, exports);
+        exports.put(name, exportFile);
+        LOGGER.info("Export added: " + name);
+        return name;
+    }
+
+    synchronized void remove(String name) {
+        exports.remove(name);
+        LoadedExport export = loaded.remove(name);
+        if (export != null && export.accounted) {
+            retainedSize -= export.retainedSize;
+        }
+        LOGGER.info("Export removed: " + name);
+    }
+
+    /**
+     * If the export is loaded the data are loaded again and the entries which did not change are reused. The current data are replaced once the
+     * new data are ready. Otherwise the export is loaded on next access as usual.
+     *
+     * @param name
+     */
+    void reload(String name) {
+        File exportFile = exports.get(name);
+        LoadedExport current;
+        synchronized (this) {
+            current = loaded.get(name);
+        }
+        if (exportFile == null || current == null) {
+            return;
+        }
+        ExportFileJsonDataProvider previous;
+        try {
+            previous = current.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            previous = null;
+        }
+        LoadedExport reloaded = new LoadedExport(new ExportFileJsonDataProvider(exportFile, previous), estimateRetainedSize(exportFile));
+        synchronized (this) {
+            // Skip if evicted or removed in the meantime
+            if (loaded.get(name) == current) {
+                loaded.put(name, reloaded);
+                if (current.accounted) {
+                    retainedSize -= current.retainedSize;
+                }
+                account(name, reloaded);
+                LOGGER.info("Export reloaded: " + name);
+            }
+        }
+    }
+
+    synchronized boolean isLoaded(String name) {
+        LoadedExport export = loaded.get(name);
+        return export != null && export.task.isDone();
+    }
+
+    /**
+     *
+     * @param name
+     * @return a data provider which loads the export file on first access
+     */
+    AdapterJsonDataProvider getProvider(String name) {
+        if (!exports.containsKey(name)) {
+            throw new IllegalArgumentException("No export file found for: " + name);
+        }
+        return new DelegatingJsonDataProvider() {
+            @Override
+            protected AdapterJsonDataProvider delegate() {
+                return load(name);
+            }
+        };
+    }
+
+    ExportFileJsonDataProvider load(String name) {
+        File exportFile = exports.get(name);
+        if (exportFile == null) {
+            throw new IllegalArgumentException("No export file found for: " + name);
+        }
+        LoadedExport export;
+        boolean created = false;
+        synchronized (this) {
+            export = loaded.get(name);
+        }
+        if (export == null) {
+            // The estimate opens the zip file - do not block other threads meanwhile
+            long retainedSize = estimateRetainedSize(exportFile);
+            synchronized (this) {
+                export = loaded.get(name);
+                if (export == null) {
+                    export = new LoadedExport(exportFile, retainedSize);
+                    loaded.put(name, export);
+                    created = true;
+                }
+            }
+        }
+        if (created) {
+            RequestMetrics.cacheMiss(RequestMetrics.Cache.EXPORTS);
+            LOGGER.info("Loading export file: " + exportFile);
+            // Other threads asking for the same export wait for this task
+            export.task.run();
+        } else {
+            RequestMetrics.cacheHit(RequestMetrics.Cache.EXPORTS);
+        }
+        try {
+            ExportFileJsonDataProvider provider = export.task.get();
+            if (created) {
+                synchronized (this) {
+                    // Skip if removed in the meantime
+                    if (loaded.get(name) == export) {
+                        account(name, export);
+                    }
+                }
+            }
+            return provider;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading export file: " + exportFile, e);
+        } catch (ExecutionException e) {
+            synchronized (this) {
+                // Allow the next access to retry
+                loaded.remove(name, export);
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Cannot load export file: " + exportFile, e.getCause());
+        }
+    }
+
+    private void account(String name, LoadedExport export) {
+        export.accounted = true;
+        retainedSize += export.retainedSize;
+        evict(name);
+    }
+
+    private void evict(String currentName) {
+        for (Iterator<Entry<String, LoadedExport>> iterator = loaded.entrySet().iterator(); iterator.hasNext() && retainedSize > maxRetainedSize;) {
+            Entry<String, LoadedExport> entry = iterator.next();
+            if (entry.getKey().equals(currentName) || !entry.getValue().accounted) {
+                continue;
+            }
+            iterator.remove();
+            retainedSize -= entry.getValue().retainedSize;
+            LOGGER.info("Export evicted: " + entry.getKey());
+        }
+    }
+
+    /**
+     * The estimate is based on the uncompressed size of the zip entries.
+     *
+     * @param exportFile
+     * @return the estimated heap retained by the data loaded from the given export file
+     */
+    static long estimateRetainedSize(File exportFile) {
+        long size = 0;
+        try (ZipFile zip = new ZipFile(exportFile)) {
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+                ZipEntry entry = entries.nextElement();
+                size += entry.getSize() > 0 ? entry.getSize() : entry.getCompressedSize();
+            }
+        } catch (IOException e) {
+            // The file size is a good enough approximation
+            size = exportFile.length();
+        }
+        return size * JSON_TREE_OVERHEAD_FACTOR;
+    }
+
+    static String toName(File exportFile) {
+        String name = exportFile.getName();
+        if (name.endsWith(EXPORT_FILE_SUFFIX)) {
+            name = name.substring(0, name.length() - EXPORT_FILE_SUFFIX.length());
+        }
+        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+
+    private static String toUniqueName(File exportFile, Map<String, File> exports) {
+        String name = toName(exportFile);
+        String unique = name;
+        int idx = 1;
+        while (exports.containsKey(unique)) {
+            unique = name + "-" + idx++;
+        }
+        return unique;
+    }
+
+    private static class LoadedExport {
+
+        private final FutureTask<ExportFileJsonDataProvider> task;
+
+        private final long retainedSize;
+
+        // Guarded by the registry
+        private boolean accounted;
+
+        /**
+         *
+         * @param exportFile
+         * @param retainedSize
+         * @see ExportFileRegistry#estimateRetainedSize(File)
+         */
+        LoadedExport(File exportFile, long retainedSize) {
+            this.task = new FutureTask<>(() -> new ExportFileJsonDataProvider(exportFile));
+            this.retainedSize = retainedSize;
+        }
+
+        LoadedExport(ExportFileJsonDataProvider provider, long retainedSize) {
+            this.task = new FutureTask<>(() -> provider);
+            this.task.run();
+            this.retainedSize = retainedSize;
+        }
+
+    }
+
+}
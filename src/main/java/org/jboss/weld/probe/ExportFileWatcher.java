@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a directory for created, modified and deleted export files.
+ * <p>
+ * The change handler is notified from a background thread once a changed file was not modified for a while, i.e. the file is most likely
+ * completely written.
+ */
+class ExportFileWatcher implements Closeable {
+
+    private static final long QUIET_PERIOD = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(ExportFileWatcher.class.getName());
+
+    private final Path directory;
+
+    private final Predicate<Path> filter;
+
+    private final Consumer<File> changeHandler;
+
+    private final WatchService watchService;
+
+    private final Thread thread;
+
+    /**
+     *
+     * @param directory
+     * @param filter
+     * @param changeHandler the handler must check whether the file still exists
+     * @throws IOException
+     */
+    ExportFileWatcher(Path directory, Predicate<Path> filter, Consumer<File> changeHandler) throws IOException {
+        this.directory = directory;
+        this.filter = filter;
+        this.changeHandler = changeHandler;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        this.thread = new Thread(this::watch, "weld-probe-export-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+    private void watch() {
+        // Changed files and the time of the last change
+        Map<Path, Long> pending = new HashMap<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(QUIET_PERIOD / 2, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (OVERFLOW.equals(event.kind())) {
+                            continue;
+                        }
+                        Path path = directory.resolve((Path) event.context());
+                        if (filter.test(path)) {
+                            pending.put(path, System.currentTimeMillis());
+                        }
+                    }
+                    if (!key.reset()) {
+                        LOGGER.warning("Directory no longer watched: " + directory);
+                        return;
+                    }
+                }
+                long now = System.currentTimeMillis();
+                for (Iterator<Entry<Path, Long>> iterator = pending.entrySet().iterator(); iterator.hasNext();) {
+                    Entry<Path, Long> entry = iterator.next();
+                    if (now - entry.getValue() >= QUIET_PERIOD) {
+                        iterator.remove();
+                        notifyChanged(entry.getKey().toFile());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher closed
+        }
+    }
+
+    private void notifyChanged(File file) {
+        try {
+            changeHandler.accept(file);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unable to process the changed export file, the previous data are still served: " + file, e);
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.File;
+import java.util.Date;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+
+/**
+ * Renders an HTML index of all the export files of an {@link ExportFileRegistry}.
+ */
+class ExportIndexHandler implements HttpHandler {
+
+    private final ExportFileRegistry registry;
+
+    private final String contextPath;
+
+    /**
+     *
+     * @param registry
+     * @param contextPath the path each export is served under, without the trailing slash
+     */
+    ExportIndexHandler(ExportFileRegistry registry, String contextPath) {
+        this.registry = registry;
+        this.contextPath = contextPath;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        String relativePath = exchange.getRelativePath();
+        if (!relativePath.isEmpty() && !relativePath.equals("/")) {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            exchange.endExchange();
+            return;
+        }
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html><html><head><meta charset=\"UTF-8\"><title>Weld Probe Exports</title></head><body>");
+        html.append("<h1>Weld Probe Exports</h1><p>");
+        html.append(escape(registry.getDirectory().getAbsolutePath()));
+        html.append("</p><table><thead><tr><th>Export</th><th>Size</th><th>Last modified</th><th>Loaded</th></tr></thead><tbody>");
+        for (String name : registry.getNames()) {
+            File file = registry.getFile(name);
+            if (file == null) {
+                // Removed in the meantime
+                continue;
+            }
+            html.append("<tr><td><a href=\"");
+            html.append(contextPath);
+            html.append("/");
+            html.append(name);
+            html.append(SimpleProbeFilter.REST_URL_PATTERN_BASE);
+            html.append("\">");
+            html.append(escape(file.getName()));
+            html.append("</a></td><td>");
+            html.append(file.length());
+            html.append("</td><td>");
+            html.append(new Date(file.lastModified()));
+            html.append("</td><td>");
+            html.append(registry.isLoaded(name) ? "yes" : "no");
+            html.append("</td></tr>");
+        }
+        html.append("</tbody></table></body></html>");
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, Strings.TEXT_HTML + "; charset=" + Strings.ENCODING_UTF8);
+        exchange.getResponseSender().send(html.toString());
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.CHILDREN;
+import static org.jboss.weld.probe.Strings.METHOD_NAME;
+import static org.jboss.weld.probe.Strings.TIME;
+
+import java.io.IOException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Converts invocation trees to the folded stack format, i.e. one line per stack: the frames separated by semicolons, a space and the self time of
+ * the last frame in milliseconds. A frame is the bean class and the method name. Stacks with zero self time are omitted.
+ * <p>
+ * The lines are written as the tree is traversed, the stacks of different trees are not merged. The output may be consumed by any flame graph tool.
+ */
+final class FoldedStacks {
+
+    private FoldedStacks() {
+    }
+
+    /**
+     *
+     * @param invocation the root of an invocation tree
+     * @param out
+     * @throws IOException
+     */
+    static void write(JsonObject invocation, Appendable out) throws IOException {
+        write(invocation, new StringBuilder(), out);
+    }
+
+    private static void write(JsonObject invocation, StringBuilder stack, Appendable out) throws IOException {
+        int stackLength = stack.length();
+        if (stackLength > 0) {
+            stack.append(';');
+        }
+        appendFrame(invocation, stack);
+        long time = invocation.has(TIME) ? invocation.get(TIME).getAsLong() : 0;
+        long childrenTime = 0;
+        if (invocation.has(CHILDREN)) {
+            for (JsonElement child : invocation.get(CHILDREN).getAsJsonArray()) {
+                JsonObject childInvocation = child.getAsJsonObject();
+                childrenTime += childInvocation.has(TIME) ? childInvocation.get(TIME).getAsLong() : 0;
+                write(childInvocation, stack, out);
+            }
+        }
+        long selfTime = time - childrenTime;
+        if (selfTime > 0) {
+            out.append(stack).append(' ').append(Long.toString(selfTime)).append('\n');
+        }
+        stack.setLength(stackLength);
+    }
+
+    private static void appendFrame(JsonObject invocation, StringBuilder stack) {
+        String frame = InvocationStats.getBeanClass(invocation) + "." + (invocation.has(METHOD_NAME) ? invocation.get(METHOD_NAME).getAsString() : "");
+        // Semicolons and whitespaces have special meaning
+        for (int i = 0; i < frame.length(); i++) {
+            char c = frame.charAt(i);
+            stack.append(c == ';' || Character.isWhitespace(c) ? '_' : c);
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.BEAN_CLASS;
+import static org.jboss.weld.probe.Strings.CHILDREN;
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.DECLARING_CLASS;
+import static org.jboss.weld.probe.Strings.INTERCEPTED_BEAN;
+import static org.jboss.weld.probe.Strings.METHOD_NAME;
+import static org.jboss.weld.probe.Strings.TIME;
+import static org.jboss.weld.probe.Strings.TOTAL;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import org.jboss.weld.probe.Json.JsonArrayBuilder;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Aggregates invocation trees by bean class and method name. Each node of a tree is taken into account, i.e. not only the entry points. The self
+ * time of an invocation is the time not spent in its children.
+ * <p>
+ * Invocation trees may be added incrementally. This class is not thread-safe.
+ */
+class InvocationStats {
+
+    static final String COUNT = "count";
+
+    static final String TOTAL_TIME = "totalTime";
+
+    static final String SELF_TIME = "selfTime";
+
+    static final String MAX = "max";
+
+    static final int DEFAULT_LIMIT = 50;
+
+    private final Map<String, MethodStats> stats = new HashMap<>();
+
+    private long trees;
+
+    /**
+     *
+     * @param invocations the invocation trees
+     * @return the statistics
+     */
+    static InvocationStats of(Iterable<? extends JsonElement> invocations) {
+        InvocationStats stats = new InvocationStats();
+        for (JsonElement invocation : invocations) {
+            stats.add(invocation.getAsJsonObject());
+        }
+        return stats;
+    }
+
+    /**
+     *
+     * @param invocation the root of an invocation tree
+     */
+    void add(JsonObject invocation) {
+        trees++;
+        addNode(invocation);
+    }
+
+    long getTrees() {
+        return trees;
+    }
+
+    /**
+     *
+     * @param sort
+     * @param limit
+     * @return the JSON representation
+     */
+    String toJson(Sort sort, int limit) {
+        List<MethodStats> sorted = new ArrayList<>(stats.values());
+        sorted.sort(sort.comparator);
+        JsonArrayBuilder data = Json.arrayBuilder();
+        for (int i = 0; i < sorted.size() && i < limit; i++) {
+            MethodStats methodStats = sorted.get(i);
+            data.add(Json.objectBuilder().add(BEAN_CLASS, methodStats.beanClass).add(METHOD_NAME, methodStats.methodName)
+                    .add(COUNT, methodStats.histogram.getCount()).add(TOTAL_TIME, methodStats.totalTime).add(SELF_TIME, methodStats.selfTime)
+                    .add(Sort.P50.property, Sort.P50.value.applyAsLong(methodStats))
+                    .add(Sort.P95.property, Sort.P95.value.applyAsLong(methodStats))
+                    .add(Sort.P99.property, Sort.P99.value.applyAsLong(methodStats)).add(MAX, methodStats.histogram.getMax()));
+        }
+        return Json.objectBuilder().add(TOTAL, stats.size()).add(DATA, data).build();
+    }
+
+    private long addNode(JsonObject invocation) {
+        long time = invocation.has(TIME) ? invocation.get(TIME).getAsLong() : 0;
+        long childrenTime = 0;
+        if (invocation.has(CHILDREN)) {
+            for (JsonElement child : invocation.get(CHILDREN).getAsJsonArray()) {
+                childrenTime += addNode(child.getAsJsonObject());
+            }
+        }
+        String beanClass = getBeanClass(invocation);
+        String methodName = invocation.has(METHOD_NAME) ? invocation.get(METHOD_NAME).getAsString() : "";
+        MethodStats methodStats = stats.computeIfAbsent(beanClass + "#" + methodName, key -> new MethodStats(beanClass, methodName));
+        methodStats.histogram.record(time);
+        methodStats.totalTime += time;
+        // The times are rounded so the children may seem to take longer than the parent
+        methodStats.selfTime += Math.max(0, time - childrenTime);
+        return time;
+    }
+
+    static String getBeanClass(JsonObject invocation) {
+        if (invocation.has(DECLARING_CLASS)) {
+            return invocation.get(DECLARING_CLASS).getAsString();
+        } else if (invocation.has(INTERCEPTED_BEAN)) {
+            return invocation.get(INTERCEPTED_BEAN).getAsJsonObject().get(BEAN_CLASS).getAsString();
+        }
+        return "";
+    }
+
+    private static class MethodStats {
+
+        private final String beanClass;
+
+        private final String methodName;
+
+        private final DurationHistogram histogram = new DurationHistogram();
+
+        private long totalTime;
+
+        private long selfTime;
+
+        MethodStats(String beanClass, String methodName) {
+            this.beanClass = beanClass;
+            this.methodName = methodName;
+        }
+
+    }
+
+    /**
+     * The results are always sorted in descending order.
+     */
+    enum Sort {
+
+        COUNT(InvocationStats.COUNT, stats -> stats.histogram.getCount()),
+        TOTAL_TIME(InvocationStats.TOTAL_TIME, stats -> stats.totalTime),
+        SELF_TIME(InvocationStats.SELF_TIME, stats -> stats.selfTime),
+        P50("p50", stats -> stats.histogram.getValueAtQuantile(0.5)),
+        P95("p95", stats -> stats.histogram.getValueAtQuantile(0.95)),
+        P99("p99", stats -> stats.histogram.getValueAtQuantile(0.99)),
+        MAX(InvocationStats.MAX, stats -> stats.histogram.getMax()),;
+
+        private final String property;
+
+        private final ToLongFunction<MethodStats> value;
+
+        private final Comparator<MethodStats> comparator;
+
+        private Sort(String property, ToLongFunction<MethodStats> value) {
+            this.property = property;
+            this.value = value;
+            this.comparator = Comparator.comparingLong(value).reversed();
+        }
+
+        /**
+         *
+         * @param property
+         * @return the sort for the given property, {@link #SELF_TIME} if the property is <code>null</code> or empty
+         * @throws InvalidRequestException If no sort matches the given property
+         */
+        static Sort from(String property) {
+            if (property == null || property.isEmpty()) {
+                return SELF_TIME;
+            }
+            for (Sort sort : values()) {
+                if (sort.property.equalsIgnoreCase(property)) {
+                    return sort;
+                }
+            }
+            throw new InvalidRequestException("Unsupported sort: " + property);
+        }
+
+    }
+
+}
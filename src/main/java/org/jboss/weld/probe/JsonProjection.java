@@ -0,0 +1,234 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.BDA_ID;
+import static org.jboss.weld.probe.Strings.BEAN_CLASS;
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.DECLARING_BEAN;
+import static org.jboss.weld.probe.Strings.DECLARING_CLASS;
+import static org.jboss.weld.probe.Strings.DEPENDENCIES;
+import static org.jboss.weld.probe.Strings.DEPENDENTS;
+import static org.jboss.weld.probe.Strings.DESCRIPTION;
+import static org.jboss.weld.probe.Strings.ID;
+import static org.jboss.weld.probe.Strings.INTERCEPTED_BEAN;
+import static org.jboss.weld.probe.Strings.IS_ALTERNATIVE;
+import static org.jboss.weld.probe.Strings.KIND;
+import static org.jboss.weld.probe.Strings.METHOD_NAME;
+import static org.jboss.weld.probe.Strings.OBSERVED_TYPE;
+import static org.jboss.weld.probe.Strings.QUALIFIERS;
+import static org.jboss.weld.probe.Strings.RECEPTION;
+import static org.jboss.weld.probe.Strings.SCOPE;
+import static org.jboss.weld.probe.Strings.START;
+import static org.jboss.weld.probe.Strings.TIME;
+import static org.jboss.weld.probe.Strings.TX_PHASE;
+import static org.jboss.weld.probe.Strings.TYPES;
+import static org.jboss.weld.probe.Strings.UNUSED;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.jboss.weld.probe.Resource.Representation;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Projects the top-level fields of JSON objects. The projected object shares the field values with the original object, i.e. no values are copied.
+ * <p>
+ * The fields of each representation correspond to the fields the Probe REST API returns for the given representation.
+ */
+final class JsonProjection {
+
+    static final String FIELDS = "fields";
+
+    // The simple representation of a bean list includes the direct dependencies and dependents
+    private static final Set<String> BEAN_SIMPLE = fields(ID, KIND, BEAN_CLASS, BDA_ID, DECLARING_BEAN, DEPENDENCIES, DEPENDENTS);
+
+    private static final Set<String> BEAN_BASIC = fields(ID, KIND, BEAN_CLASS, BDA_ID, SCOPE, TYPES, QUALIFIERS, IS_ALTERNATIVE, UNUSED);
+
+    private static final Set<String> OBSERVER_BASIC = fields(ID, BEAN_CLASS, OBSERVED_TYPE, RECEPTION, TX_PHASE, QUALIFIERS, DECLARING_BEAN, DESCRIPTION);
+
+    private static final Set<String> INVOCATION_BASIC = fields(ID, INTERCEPTED_BEAN, DECLARING_CLASS, DESCRIPTION, METHOD_NAME, START, TIME);
+
+    private JsonProjection() {
+    }
+
+    /**
+     *
+     * @param fields the comma-separated list of field names
+     * @return the set of field names or <code>null</code> if no fields are specified
+     */
+    static Set<String> parseFields(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return null;
+        }
+        Set<String> names = new HashSet<>();
+        for (String name : fields.split(",")) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    /**
+     *
+     * @param representation
+     * @param fields the comma-separated list of field names, if specified the representation is ignored
+     * @return the fields to include or <code>null</code> if all the fields should be included
+     */
+    static Set<String> forBeans(String representation, String fields) {
+        if (fields != null && !fields.trim().isEmpty()) {
+            return parseFields(fields);
+        }
+        Representation value = Representation.from(representation);
+        if (value == null) {
+            // The default representation
+            return BEAN_BASIC;
+        }
+        switch (value) {
+            case SIMPLE:
+                return BEAN_SIMPLE;
+            case FULL:
+                return null;
+            default:
+                return BEAN_BASIC;
+        }
+    }
+
+    /**
+     *
+     * @param representation
+     * @param fields the comma-separated list of field names, if specified the representation is ignored
+     * @return the fields to include or <code>null</code> if all the fields should be included
+     */
+    static Set<String> forObservers(String representation, String fields) {
+        if (fields != null && !fields.trim().isEmpty()) {
+            return parseFields(fields);
+        }
+        return Representation.FULL.equals(Representation.from(representation)) ? null : OBSERVER_BASIC;
+    }
+
+    /**
+     *
+     * @param representation
+     * @param fields the comma-separated list of field names, if specified the representation is ignored
+     * @return the fields to include or <code>null</code> if all the fields should be included
+     */
+    static Set<String> forInvocations(String representation, String fields) {
+        if (fields != null && !fields.trim().isEmpty()) {
+            return parseFields(fields);
+        }
+        // Basic representation does not include the children
+        return Representation.FULL.equals(Representation.from(representation)) ? null : INVOCATION_BASIC;
+    }
+
+    /**
+     *
+     * @param object
+     * @param fields the fields to include, if <code>null</code> the original object is returned
+     * @return the projected object
+     */
+    static JsonObject project(JsonObject object, Set<String> fields) {
+        if (fields == null) {
+            return object;
+        }
+        JsonObject projected = new JsonObject();
+        for (Entry<String, JsonElement> entry : object.entrySet()) {
+            if (fields.contains(entry.getKey())) {
+                projected.add(entry.getKey(), entry.getValue());
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Unlike {@link #project(JsonObject, Set)} the simple representation only includes the direct dependencies and dependents, i.e. the nested beans
+     * do not declare the dependencies and dependents.
+     *
+     * @param bean the full representation of a bean
+     * @param fields the fields to include, see also {@link #forBeans(String, String)}
+     * @return the projected bean
+     */
+    static JsonObject projectBean(JsonObject bean, Set<String> fields) {
+        JsonObject projected = project(bean, fields);
+        if (fields == BEAN_SIMPLE) {
+            projected = withoutTransitive(withoutTransitive(projected, DEPENDENCIES), DEPENDENTS);
+        }
+        return projected;
+    }
+
+    /**
+     *
+     * @param bean
+     * @param member either dependencies or dependents
+     * @return a shallow copy of the bean where the nested beans of the given member do not declare the member, i.e. only the direct dependencies or
+     *         dependents are included
+     */
+    static JsonObject withoutTransitive(JsonObject bean, String member) {
+        JsonElement nested = bean.get(member);
+        if (nested == null || !nested.isJsonArray()) {
+            return bean;
+        }
+        JsonArray direct = new JsonArray();
+        for (JsonElement element : nested.getAsJsonArray()) {
+            JsonObject copy = new JsonObject();
+            for (Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                if (!member.equals(entry.getKey())) {
+                    copy.add(entry.getKey(), entry.getValue());
+                }
+            }
+            direct.add(copy);
+        }
+        JsonObject copy = new JsonObject();
+        for (Entry<String, JsonElement> entry : bean.entrySet()) {
+            copy.add(entry.getKey(), member.equals(entry.getKey()) ? direct : entry.getValue());
+        }
+        return copy;
+    }
+
+    /**
+     * Parses the given page, projects each object of the page data and serializes the page again.
+     *
+     * @param page the JSON representation of a page
+     * @param fields the fields to include, if <code>null</code> the original page is returned
+     * @return the projected page
+     */
+    static String projectPage(String page, Set<String> fields) {
+        if (fields == null) {
+            return page;
+        }
+        JsonObject pageObject = new JsonParser().parse(page).getAsJsonObject();
+        JsonArray data = new JsonArray();
+        for (JsonElement element : pageObject.get(DATA).getAsJsonArray()) {
+            data.add(project(element.getAsJsonObject(), fields));
+        }
+        pageObject.add(DATA, data);
+        return pageObject.toString();
+    }
+
+    private static Set<String> fields(String... names) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(names)));
+    }
+
+}
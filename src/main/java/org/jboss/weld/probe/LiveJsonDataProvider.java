@@ -0,0 +1,315 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.ID;
+import static org.jboss.weld.probe.Strings.TIMESTAMP;
+import static org.jboss.weld.probe.Strings.TOTAL;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.weld.probe.Resource.Representation;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Wraps the JMX proxy of a remote {@link JsonDataProvider}. The Probe REST API calls are forwarded as is.
+ * <p>
+ * The remote container only keeps a limited number of invocation trees. Therefore the invocation statistics are accumulated locally, i.e. the trees
+ * which were not seen yet are added to the statistics each time the statistics are requested. Note that there is no background collection - the trees
+ * discarded by the container between two requests are never seen. Similarly, the fired events are kept in a rolling window for the event timeline. The
+ * window is also request-driven, i.e. it only moves forward when the timeline is requested.
+ * <p>
+ * A large batch of details is received with a single remote call, i.e. the full representation of all the items of the given type. If the batch is
+ * small or only covers a small part of the items, the details are received one by one instead.
+ * <p>
+ * The monitoring history is provided by a {@link MonitoringSampler} shared by all the containers of the remote JMX server.
+ */
+class LiveJsonDataProvider implements AdapterJsonDataProvider {
+
+    // A batch of fewer ids is always received one by one - receiving the whole container needs two remote calls
+    private static final int MIN_FULL_BATCH = 4;
+
+    // The whole container is only received if the batch covers at least 1/FULL_BATCH_RATIO of the items
+    private static final int FULL_BATCH_RATIO = 10;
+
+    private final JsonDataProvider remote;
+
+    // Used for the internal calls which should not affect the prefetching
+    private final JsonDataProvider direct;
+
+    // Guarded by this
+    private final InvocationStats invocationStats = new InvocationStats();
+
+    // Guarded by this
+    private int lastInvocationId = -1;
+
+    private final long eventsWindow;
+
+    // Guarded by this
+    private final EventTimeline eventTimeline = new EventTimeline();
+
+    // Guarded by this
+    private long lastEventTimestamp = Long.MIN_VALUE;
+
+    // Guarded by this - the number of events seen with the last timestamp
+    private int lastEventTimestampCount;
+
+    private final MonitoringSampler sampler;
+
+    private final String container;
+
+    /**
+     *
+     * @param remote the JMX proxy, possibly wrapped in a {@link PrefetchingJsonDataProvider}
+     * @param direct the JMX proxy which is never wrapped in a {@link PrefetchingJsonDataProvider}
+     * @param eventsWindow the events rolling window in milliseconds
+     * @param sampler the monitoring sampler, may be <code>null</code> if sampling is disabled
+     * @param container the name of the container used by the sampler
+     */
+    LiveJsonDataProvider(JsonDataProvider remote, JsonDataProvider direct, long eventsWindow, MonitoringSampler sampler, String container) {
+        this.remote = remote;
+        this.direct = direct;
+        this.eventsWindow = eventsWindow;
+        this.sampler = sampler;
+        this.container = container;
+    }
+
+    @Override
+    public String receiveDeployment() {
+        return remote.receiveDeployment();
+    }
+
+    @Override
+    public String receiveBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return remote.receiveBeans(pageIndex, pageSize, filters, representation);
+    }
+
+    @Override
+    public String receiveBean(String id, boolean transientDependencies, boolean transientDependents) {
+        return remote.receiveBean(id, transientDependencies, transientDependents);
+    }
+
+    @Override
+    public String receiveBeanInstance(String id) {
+        return remote.receiveBeanInstance(id);
+    }
+
+    @Override
+    public String receiveObservers(int pageIndex, int pageSize, String filters, String representation) {
+        return remote.receiveObservers(pageIndex, pageSize, filters, representation);
+    }
+
+    @Override
+    public String receiveObserver(String id) {
+        return remote.receiveObserver(id);
+    }
+
+    @Override
+    public String receiveContexts() {
+        return remote.receiveContexts();
+    }
+
+    @Override
+    public String receiveContext(String id) {
+        return remote.receiveContext(id);
+    }
+
+    @Override
+    public String receiveInvocations(int pageIndex, int pageSize, String filters, String representation) {
+        return remote.receiveInvocations(pageIndex, pageSize, filters, representation);
+    }
+
+    @Override
+    public String clearInvocations() {
+        return remote.clearInvocations();
+    }
+
+    @Override
+    public String receiveInvocation(String id) {
+        return remote.receiveInvocation(id);
+    }
+
+    @Override
+    public String receiveEvents(int pageIndex, int pageSize, String filters) {
+        return remote.receiveEvents(pageIndex, pageSize, filters);
+    }
+
+    @Override
+    public String clearEvents() {
+        return remote.clearEvents();
+    }
+
+    @Override
+    public String receiveMonitoringStats() {
+        return remote.receiveMonitoringStats();
+    }
+
+    @Override
+    public String receiveAvailableBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return remote.receiveAvailableBeans(pageIndex, pageSize, filters, representation);
+    }
+
+    @Override
+    public void writeDetails(DetailBatch.Type type, Set<String> ids, Writer out) throws IOException {
+        // The first page of size one is cheap and holds the total number of items
+        if (ids.size() < MIN_FULL_BATCH
+                || (long) ids.size() * FULL_BATCH_RATIO < receivePage(type, 1, 1, Representation.SIMPLE).get(TOTAL).getAsLong()) {
+            AdapterJsonDataProvider.super.writeDetails(type, ids, out);
+            return;
+        }
+        // The full representation of each item is identical to its detail, i.e. a single remote call is needed for the whole batch
+        Map<String, JsonElement> details = new HashMap<>();
+        // Page size 0 means no paging
+        for (JsonElement element : receivePage(type, 0, 0, Representation.FULL).get(DATA).getAsJsonArray()) {
+            String id = element.getAsJsonObject().get(ID).getAsString();
+            if (ids.contains(id)) {
+                details.put(id, element);
+            }
+        }
+        DetailBatch batch = new DetailBatch(out);
+        for (String id : ids) {
+            JsonElement detail = details.get(id);
+            if (detail != null) {
+                batch.write(detail.toString());
+            } else {
+                batch.missing(id);
+            }
+        }
+        batch.end();
+    }
+
+    @Override
+    public String receiveInvocationStats(String filters, String sort, int limit) {
+        InvocationStats.Sort statsSort = InvocationStats.Sort.from(sort);
+        if (filters != null && !filters.isEmpty()) {
+            // Filtered statistics are computed from the trees currently held by the remote container
+            return InvocationStats.of(receiveAllInvocations(filters)).toJson(statsSort, limit);
+        }
+        JsonArray invocations = receiveAllInvocations(null);
+        synchronized (this) {
+            int maxId = lastInvocationId;
+            for (JsonElement element : invocations) {
+                JsonObject invocation = element.getAsJsonObject();
+                int id = invocation.get(ID).getAsInt();
+                if (id > lastInvocationId) {
+                    invocationStats.add(invocation);
+                    maxId = Math.max(maxId, id);
+                }
+            }
+            lastInvocationId = maxId;
+            return invocationStats.toJson(statsSort, limit);
+        }
+    }
+
+    @Override
+    public void writeFoldedStacks(String filters, Writer out) throws IOException {
+        for (JsonElement invocation : receiveAllInvocations(filters)) {
+            FoldedStacks.write(invocation.getAsJsonObject(), out);
+        }
+    }
+
+    @Override
+    public String receiveEventTimeline(String filters, String groupBy, long interval) {
+        EventTimeline.GroupBy timelineGroupBy = EventTimeline.GroupBy.from(groupBy);
+        if (filters != null && !filters.isEmpty()) {
+            // Filtered timeline is computed from the events currently held by the remote container
+            return EventTimeline.of(receiveAllEvents(filters)).toJson(timelineGroupBy, interval);
+        }
+        JsonArray events = receiveAllEvents(null);
+        synchronized (this) {
+            long maxTimestamp = lastEventTimestamp;
+            int maxTimestampCount = 0;
+            int lastTimestampCount = 0;
+            // The most recent events come first
+            for (int i = events.size() - 1; i >= 0; i--) {
+                JsonObject event = events.get(i).getAsJsonObject();
+                if (!event.has(TIMESTAMP)) {
+                    continue;
+                }
+                long timestamp = event.get(TIMESTAMP).getAsLong();
+                // Events have no id - skip the events with the last timestamp which were already seen
+                if (timestamp > lastEventTimestamp || (timestamp == lastEventTimestamp && ++lastTimestampCount > lastEventTimestampCount)) {
+                    eventTimeline.add(event);
+                }
+                if (timestamp > maxTimestamp) {
+                    maxTimestamp = timestamp;
+                    maxTimestampCount = 1;
+                } else if (timestamp == maxTimestamp) {
+                    maxTimestampCount++;
+                }
+            }
+            if (maxTimestamp == lastEventTimestamp) {
+                lastEventTimestampCount = Math.max(lastEventTimestampCount, maxTimestampCount);
+            } else {
+                lastEventTimestamp = maxTimestamp;
+                lastEventTimestampCount = maxTimestampCount;
+            }
+            if (eventTimeline.size() > 0) {
+                eventTimeline.evictBefore(lastEventTimestamp - eventsWindow);
+            }
+            return eventTimeline.toJson(timelineGroupBy, interval);
+        }
+    }
+
+    @Override
+    public String receiveMonitoringHistory(String metric, long since, int points) {
+        if (sampler == null) {
+            throw new ResourceNotAvailableException();
+        }
+        return sampler.getHistory(container, metric, since, points);
+    }
+
+    private JsonObject receivePage(DetailBatch.Type type, int pageIndex, int pageSize, Representation representation) {
+        // These pages are never served, i.e. the next page and the details of the items must not be prefetched
+        String page;
+        switch (type) {
+            case BEANS:
+                page = direct.receiveBeans(pageIndex, pageSize, null, representation.toString());
+                break;
+            case OBSERVERS:
+                page = direct.receiveObservers(pageIndex, pageSize, null, representation.toString());
+                break;
+            case INVOCATIONS:
+                page = direct.receiveInvocations(pageIndex, pageSize, null, representation.toString());
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+        return new JsonParser().parse(page).getAsJsonObject();
+    }
+
+    private JsonArray receiveAllEvents(String filters) {
+        // Page size 0 means no paging
+        return new JsonParser().parse(remote.receiveEvents(0, 0, filters)).getAsJsonObject().get(DATA).getAsJsonArray();
+    }
+
+    private JsonArray receiveAllInvocations(String filters) {
+        // Page size 0 means no paging
+        return new JsonParser().parse(remote.receiveInvocations(0, 0, filters, Representation.FULL.toString())).getAsJsonObject().get(DATA)
+                .getAsJsonArray();
+    }
+
+}
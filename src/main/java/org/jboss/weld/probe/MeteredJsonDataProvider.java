@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.util.function.Supplier;
+
+/**
+ * Wraps the JMX proxy of a remote {@link JsonDataProvider} and records the duration of each remote call in the {@link RequestMetrics}.
+ */
+class MeteredJsonDataProvider implements JsonDataProvider {
+
+    private final JsonDataProvider remote;
+
+    private final RequestMetrics metrics;
+
+    /**
+     *
+     * @param remote the JMX proxy
+     * @param metrics
+     */
+    MeteredJsonDataProvider(JsonDataProvider remote, RequestMetrics metrics) {
+        this.remote = remote;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String receiveDeployment() {
+        return call("receiveDeployment", remote::receiveDeployment);
+    }
+
+    @Override
+    public String receiveBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return call("receiveBeans", () -> remote.receiveBeans(pageIndex, pageSize, filters, representation));
+    }
+
+    @Override
+    public String receiveBean(String id, boolean transientDependencies, boolean transientDependents) {
+        return call("receiveBean", () -> remote.receiveBean(id, transientDependencies, transientDependents));
+    }
+
+    @Override
+    public String receiveBeanInstance(String id) {
+        return call("receiveBeanInstance", () -> remote.receiveBeanInstance(id));
+    }
+
+    @Override
+    public String receiveObservers(int pageIndex, int pageSize, String filters, String representation) {
+        return call("receiveObservers", () -> remote.receiveObservers(pageIndex, pageSize, filters, representation));
+    }
+
+    @Override
+    public String receiveObserver(String id) {
+        return call("receiveObserver", () -> remote.receiveObserver(id));
+    }
+
+    @Override
+    public String receiveContexts() {
+        return call("receiveContexts", remote::receiveContexts);
+    }
+
+    @Override
+    public String receiveContext(String id) {
+        return call("receiveContext", () -> remote.receiveContext(id));
+    }
+
+    @Override
+    public String receiveInvocations(int pageIndex, int pageSize, String filters, String representation) {
+        return call("receiveInvocations", () -> remote.receiveInvocations(pageIndex, pageSize, filters, representation));
+    }
+
+    @Override
+    public String clearInvocations() {
+        return call("clearInvocations", remote::clearInvocations);
+    }
+
+    @Override
+    public String receiveInvocation(String id) {
+        return call("receiveInvocation", () -> remote.receiveInvocation(id));
+    }
+
+    @Override
+    public String receiveEvents(int pageIndex, int pageSize, String filters) {
+        return call("receiveEvents", () -> remote.receiveEvents(pageIndex, pageSize, filters));
+    }
+
+    @Override
+    public String clearEvents() {
+        return call("clearEvents", remote::clearEvents);
+    }
+
+    @Override
+    public String receiveMonitoringStats() {
+        return call("receiveMonitoringStats", remote::receiveMonitoringStats);
+    }
+
+    @Override
+    public String receiveAvailableBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return call("receiveAvailableBeans", () -> remote.receiveAvailableBeans(pageIndex, pageSize, filters, representation));
+    }
+
+    private String call(String method, Supplier<String> call) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            String result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            metrics.remoteCall(method, System.nanoTime() - start, failed);
+        }
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.DATA;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Periodically samples the monitoring stats of all the given containers from a background thread. Each numeric property of the monitoring stats is
+ * a separate metric and the samples of a metric are kept in a {@link SampleRing}. The set of containers is obtained before each sampling, i.e. the
+ * containers deployed later are sampled as well. The history of a container which is gone is kept.
+ */
+class MonitoringSampler implements Closeable {
+
+    static final String METRIC = "metric";
+
+    static final String SINCE = "since";
+
+    static final String POINTS = "points";
+
+    static final String INTERVAL = "interval";
+
+    static final String CAPACITY = "capacity";
+
+    static final int DEFAULT_POINTS = 300;
+
+    private static final Logger LOGGER = Logger.getLogger(MonitoringSampler.class.getName());
+
+    private final Supplier<Map<String, JsonDataProvider>> containers;
+
+    // Used if the containers cannot be obtained
+    private volatile Map<String, JsonDataProvider> lastContainers = Collections.emptyMap();
+
+    private volatile boolean containersFailing;
+
+    private final long interval;
+
+    private final int capacity;
+
+    // Container -> metric -> samples
+    private final Map<String, Map<String, SampleRing>> samples = new ConcurrentHashMap<>();
+
+    // Containers which failed to provide the stats last time
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     *
+     * @param containers supplies the data providers of the sampled containers, container name -> data provider
+     * @param interval the sampling interval in milliseconds
+     * @param capacity the max number of samples kept for each metric
+     * @throws IllegalArgumentException if the capacity is less than 1
+     */
+    MonitoringSampler(Supplier<Map<String, JsonDataProvider>> containers, long interval, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be greater than zero: " + capacity);
+        }
+        this.containers = containers;
+        this.interval = interval;
+        this.capacity = capacity;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "weld-probe-monitoring-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::sample, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     *
+     * @param container
+     * @param metric the metric name, if <code>null</code> all the metrics are included
+     * @param since only the samples taken at this time or later are included
+     * @param points the max number of points per metric
+     * @return the downsampled history of the given container
+     */
+    String getHistory(String container, String metric, long since, int points) {
+        JsonObject history = new JsonObject();
+        history.addProperty(INTERVAL, interval);
+        history.addProperty(CAPACITY, capacity);
+        JsonObject data = new JsonObject();
+        Map<String, SampleRing> metrics = samples.get(container);
+        if (metrics != null) {
+            for (Entry<String, SampleRing> entry : metrics.entrySet()) {
+                if (metric == null || metric.equals(entry.getKey())) {
+                    data.add(entry.getKey(), entry.getValue().downsample(since, points));
+                }
+            }
+        }
+        history.add(DATA, data);
+        return history.toString();
+    }
+
+    private void sample() {
+        for (Entry<String, JsonDataProvider> entry : getContainers().entrySet()) {
+            String container = entry.getKey();
+            // An exception would suppress the subsequent executions
+            try {
+                JsonObject stats = new JsonParser().parse(entry.getValue().receiveMonitoringStats()).getAsJsonObject();
+                long timestamp = System.currentTimeMillis();
+                Map<String, SampleRing> metrics = samples.computeIfAbsent(container, key -> new ConcurrentHashMap<>());
+                for (Entry<String, JsonElement> property : stats.entrySet()) {
+                    if (property.getValue().isJsonPrimitive() && property.getValue().getAsJsonPrimitive().isNumber()) {
+                        JsonPrimitive value = property.getValue().getAsJsonPrimitive();
+                        metrics.computeIfAbsent(property.getKey(), key -> new SampleRing(capacity)).add(timestamp, value.getAsLong());
+                    }
+                }
+                failing.remove(container);
+            } catch (RuntimeException e) {
+                // E.g. the container was undeployed - only log the first failure
+                if (failing.add(container)) {
+                    LOGGER.log(Level.WARNING, "Unable to sample the monitoring stats of " + container, e);
+                }
+            }
+        }
+    }
+
+    private Map<String, JsonDataProvider> getContainers() {
+        // An exception would suppress the subsequent executions
+        try {
+            lastContainers = containers.get();
+            containersFailing = false;
+        } catch (RuntimeException e) {
+            // Only log the first failure and sample the last known containers
+            if (!containersFailing) {
+                containersFailing = true;
+                LOGGER.log(Level.WARNING, "Unable to obtain the sampled containers", e);
+            }
+        }
+        return lastContainers;
+    }
+
+}
@@ -0,0 +1,383 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.ID;
+import static org.jboss.weld.probe.Strings.LAST_PAGE;
+import static org.jboss.weld.probe.Strings.PAGE;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Wraps the JMX proxy of a remote {@link JsonDataProvider} and prefetches the data which are likely to be requested next. Once a page of beans,
+ * observers or invocations is served, the next page and the details of the beans, observers or invocations on the page are prefetched.
+ * <p>
+ * The prefetching is performed by a single background thread with the lowest priority. A prefetch waits until there are no requests in progress
+ * and the number of prefetches per page is limited by the budget. Furthermore, all the remote calls share a single rate limit. Requests are never
+ * delayed but consume the rate limit as well, i.e. the data are only prefetched if the rate of all the remote calls is below the limit. The
+ * calls of the {@link MonitoringSampler} are not made through this provider and are therefore exempt from the rate limit. Pending prefetches are
+ * discarded as soon as another page is served.
+ * <p>
+ * A prefetched result is only used once and expires after a short period of time, so that the data are not stale. A request for data which are
+ * being prefetched waits for the prefetch to complete.
+ */
+class PrefetchingJsonDataProvider implements JsonDataProvider, Closeable {
+
+    static final long DEFAULT_TTL = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(PrefetchingJsonDataProvider.class.getName());
+
+    private final JsonDataProvider remote;
+
+    private final TokenBucket rateLimit;
+
+    private final int budget;
+
+    private final long ttl;
+
+    // Guarded by itself, the eldest entries are removed first
+    private final Map<List<Object>, Prefetched> cache = new LinkedHashMap<List<Object>, Prefetched>() {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Prefetched> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+
+    };
+
+    private final BlockingDeque<Prefetch> queue = new LinkedBlockingDeque<>();
+
+    // The number of requests in progress
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final LongAdder prefetches = new LongAdder();
+
+    private final Thread worker;
+
+    /**
+     *
+     * @param remote the JMX proxy
+     * @param rate the max number of remote calls per second
+     * @param budget the max number of prefetches per served page
+     * @param ttl the time in milliseconds a prefetched result may be used for
+     */
+    PrefetchingJsonDataProvider(JsonDataProvider remote, double rate, int budget, long ttl) {
+        this.remote = remote;
+        this.rateLimit = new TokenBucket(rate);
+        this.budget = budget;
+        this.ttl = ttl;
+        this.worker = new Thread(this::prefetch, "weld-probe-prefetcher");
+        this.worker.setDaemon(true);
+        this.worker.setPriority(Thread.MIN_PRIORITY);
+        this.worker.start();
+    }
+
+    @Override
+    public void close() {
+        worker.interrupt();
+        queue.clear();
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public String receiveDeployment() {
+        return call(remote::receiveDeployment);
+    }
+
+    @Override
+    public String receiveBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return receivePage(pageSize, key(Resource.BEANS, pageIndex, pageSize, filters, representation),
+                () -> remote.receiveBeans(pageIndex, pageSize, filters, representation),
+                next -> new Prefetch(key(Resource.BEANS, next, pageSize, filters, representation),
+                        () -> remote.receiveBeans(next, pageSize, filters, representation)),
+                id -> beanPrefetch(id));
+    }
+
+    @Override
+    public String receiveBean(String id, boolean transientDependencies, boolean transientDependents) {
+        return receive(key(Resource.BEAN, id, transientDependencies, transientDependents),
+                () -> remote.receiveBean(id, transientDependencies, transientDependents));
+    }
+
+    @Override
+    public String receiveBeanInstance(String id) {
+        return call(() -> remote.receiveBeanInstance(id));
+    }
+
+    @Override
+    public String receiveObservers(int pageIndex, int pageSize, String filters, String representation) {
+        return receivePage(pageSize, key(Resource.OBSERVERS, pageIndex, pageSize, filters, representation),
+                () -> remote.receiveObservers(pageIndex, pageSize, filters, representation),
+                next -> new Prefetch(key(Resource.OBSERVERS, next, pageSize, filters, representation),
+                        () -> remote.receiveObservers(next, pageSize, filters, representation)),
+                id -> new Prefetch(key(Resource.OBSERVER, id), () -> remote.receiveObserver(id)));
+    }
+
+    @Override
+    public String receiveObserver(String id) {
+        return receive(key(Resource.OBSERVER, id), () -> remote.receiveObserver(id));
+    }
+
+    @Override
+    public String receiveContexts() {
+        return call(remote::receiveContexts);
+    }
+
+    @Override
+    public String receiveContext(String id) {
+        return call(() -> remote.receiveContext(id));
+    }
+
+    @Override
+    public String receiveInvocations(int pageIndex, int pageSize, String filters, String representation) {
+        return receivePage(pageSize, key(Resource.INVOCATIONS, pageIndex, pageSize, filters, representation),
+                () -> remote.receiveInvocations(pageIndex, pageSize, filters, representation),
+                next -> new Prefetch(key(Resource.INVOCATIONS, next, pageSize, filters, representation),
+                        () -> remote.receiveInvocations(next, pageSize, filters, representation)),
+                id -> new Prefetch(key(Resource.INVOCATION, id), () -> remote.receiveInvocation(id)));
+    }
+
+    @Override
+    public String clearInvocations() {
+        invalidate();
+        return call(remote::clearInvocations);
+    }
+
+    @Override
+    public String receiveInvocation(String id) {
+        return receive(key(Resource.INVOCATION, id), () -> remote.receiveInvocation(id));
+    }
+
+    @Override
+    public String receiveEvents(int pageIndex, int pageSize, String filters) {
+        return call(() -> remote.receiveEvents(pageIndex, pageSize, filters));
+    }
+
+    @Override
+    public String clearEvents() {
+        return call(remote::clearEvents);
+    }
+
+    @Override
+    public String receiveMonitoringStats() {
+        return call(remote::receiveMonitoringStats);
+    }
+
+    @Override
+    public String receiveAvailableBeans(int pageIndex, int pageSize, String filters, String representation) {
+        return call(() -> remote.receiveAvailableBeans(pageIndex, pageSize, filters, representation));
+    }
+
+    long getPrefetches() {
+        return prefetches.sum();
+    }
+
+    private Prefetch beanPrefetch(String id) {
+        // The HTML client always requests the transitive dependencies and dependents
+        return new Prefetch(key(Resource.BEAN, id, true, true), () -> remote.receiveBean(id, true, true));
+    }
+
+    private String receivePage(int pageSize, List<Object> key, Supplier<String> loader, IntFunction<Prefetch> nextPage,
+            Function<String, Prefetch> detail) {
+        if (pageSize <= 0) {
+            // All the data are requested - nothing to prefetch
+            return call(loader);
+        }
+        String page = receive(key, loader);
+        schedule(page, nextPage, detail);
+        return page;
+    }
+
+    private String receive(List<Object> key, Supplier<String> loader) {
+        Prefetched prefetched;
+        synchronized (cache) {
+            // A prefetched result is only used once
+            prefetched = cache.remove(key);
+        }
+        if (prefetched != null) {
+            String value = prefetched.get(ttl);
+            if (value != null) {
+                RequestMetrics.cacheHit(RequestMetrics.Cache.PREFETCH);
+                return value;
+            }
+        }
+        RequestMetrics.cacheMiss(RequestMetrics.Cache.PREFETCH);
+        return call(loader);
+    }
+
+    private String call(Supplier<String> loader) {
+        rateLimit.consume();
+        requests.incrementAndGet();
+        try {
+            return loader.get();
+        } finally {
+            requests.decrementAndGet();
+        }
+    }
+
+    private void schedule(String page, IntFunction<Prefetch> nextPage, Function<String, Prefetch> detail) {
+        List<Prefetch> prefetches = new ArrayList<>();
+        JsonObject pageObject = new JsonParser().parse(page).getAsJsonObject();
+        if (pageObject.has(PAGE) && pageObject.has(LAST_PAGE) && pageObject.get(PAGE).getAsInt() < pageObject.get(LAST_PAGE).getAsInt()) {
+            prefetches.add(nextPage.apply(pageObject.get(PAGE).getAsInt() + 1));
+        }
+        if (pageObject.has(DATA)) {
+            for (JsonElement element : pageObject.get(DATA).getAsJsonArray()) {
+                if (prefetches.size() >= budget) {
+                    break;
+                }
+                JsonElement id = element.getAsJsonObject().get(ID);
+                if (id != null) {
+                    prefetches.add(detail.apply(id.getAsString()));
+                }
+            }
+        }
+        // The pending prefetches of the previous page are obsolete
+        queue.clear();
+        queue.addAll(prefetches.subList(0, Math.min(prefetches.size(), budget)));
+    }
+
+    private void prefetch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Prefetch prefetch = queue.takeFirst();
+                if (isCached(prefetch.key)) {
+                    continue;
+                }
+                // Requests in progress always take precedence - the token is only taken once there are none, right before the remote call
+                while (requests.get() > 0 || !rateLimit.tryAcquire()) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+                CompletableFuture<String> future = new CompletableFuture<>();
+                synchronized (cache) {
+                    cache.put(prefetch.key, new Prefetched(future));
+                }
+                try {
+                    future.complete(prefetch.loader.get());
+                    prefetches.increment();
+                } catch (RuntimeException e) {
+                    // E.g. the item does not exist anymore - the request will be forwarded to the remote container
+                    LOGGER.log(Level.FINE, "Unable to prefetch " + prefetch.key, e);
+                    future.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isCached(List<Object> key) {
+        synchronized (cache) {
+            Prefetched prefetched = cache.get(key);
+            return prefetched != null && !prefetched.isExpired(ttl);
+        }
+    }
+
+    private void invalidate() {
+        queue.clear();
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static List<Object> key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    private static class Prefetch {
+
+        private final List<Object> key;
+
+        private final Supplier<String> loader;
+
+        Prefetch(List<Object> key, Supplier<String> loader) {
+            this.key = key;
+            this.loader = loader;
+        }
+
+    }
+
+    private static class Prefetched {
+
+        private final CompletableFuture<String> value;
+
+        // Guarded by this
+        private long completed;
+
+        Prefetched(CompletableFuture<String> value) {
+            this.value = value;
+            value.whenComplete((v, e) -> {
+                synchronized (this) {
+                    completed = System.currentTimeMillis();
+                }
+            });
+        }
+
+        synchronized boolean isExpired(long ttl) {
+            return completed > 0 && System.currentTimeMillis() - completed > ttl;
+        }
+
+        /**
+         * Waits for the prefetch to complete if necessary.
+         *
+         * @param ttl
+         * @return the prefetched value or <code>null</code> if expired or failed
+         */
+        String get(long ttl) {
+            String result;
+            try {
+                result = value.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return null;
+            }
+            return isExpired(ttl) ? null : result;
+        }
+
+    }
+
+}
@@ -21,18 +21,33 @@ import static java.lang.System.exit;
 import static java.lang.System.out;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+import javax.management.JMException;
 import javax.management.JMX;
 import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
@@ -41,6 +56,8 @@ import javax.servlet.ServletException;
 
 import io.undertow.Handlers;
 import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
 import io.undertow.server.handlers.PathHandler;
 import io.undertow.servlet.Servlets;
 import io.undertow.servlet.api.DeploymentInfo;
@@ -48,6 +65,7 @@ import io.undertow.servlet.api.DeploymentManager;
 import io.undertow.servlet.api.InstanceFactory;
 import io.undertow.servlet.api.InstanceHandle;
 import io.undertow.servlet.util.ImmediateInstanceHandle;
+import io.undertow.util.Headers;
 
 /**
  * This adapter allows to reuse the default HTML GUI even if there is no REST API available.
@@ -70,18 +88,50 @@ public class ProbeClientAdapter {
 
     static final String SYSTEM_PROPERTY_UT_PORT = "org.jboss.weld.probe.undertowPort";
 
+    static final String SYSTEM_PROPERTY_EXPORTS_MAX_HEAP = "org.jboss.weld.probe.exportsMaxHeap";
+
+    static final String SYSTEM_PROPERTY_WATCH_EXPORTS = "org.jboss.weld.probe.watchExports";
+
+    static final String SYSTEM_PROPERTY_EVENTS_WINDOW = "org.jboss.weld.probe.eventsWindow";
+
+    static final String SYSTEM_PROPERTY_SAMPLING_INTERVAL = "org.jboss.weld.probe.samplingInterval";
+
+    static final String SYSTEM_PROPERTY_SAMPLING_CAPACITY = "org.jboss.weld.probe.samplingCapacity";
+
+    static final String SYSTEM_PROPERTY_PREFETCH = "org.jboss.weld.probe.prefetch";
+
+    static final String SYSTEM_PROPERTY_PREFETCH_RATE = "org.jboss.weld.probe.prefetchRate";
+
+    static final String SYSTEM_PROPERTY_PREFETCH_BUDGET = "org.jboss.weld.probe.prefetchBudget";
+
     static final String PROBE_CLIENT_ADAPTER_APP = "probe-client-adapter";
 
     static final String PROBE_FILTER_NAME = "Weld Probe Filter";
 
     static final String DEFAULT_JMX_SERVICE_URL = "service:jmx:rmi:///jndi/rmi://127.0.0.1:9999/jmxrmi";
 
+    static final String METRICS_PATH = "/metrics";
+
     public static void main(String[] args) {
+        if (BatchQuery.isBatchQuery(args)) {
+            // Headless mode - no Undertow and no console
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            BatchQuery query;
+            try {
+                query = BatchQuery.from(args, writer);
+            } catch (IllegalArgumentException e) {
+                err.println(e.getMessage());
+                err.println(BatchQuery.usage());
+                exit(2);
+                return;
+            }
+            exit(query.run());
+        }
         File exportFile = null;
         if (args.length == 1) {
             exportFile = new File(args[0]);
             if (!exportFile.canRead()) {
-                throw new IllegalStateException("Export file does not exist or is not readable");
+                throw new IllegalStateException("Export file or directory does not exist or is not readable");
             }
         }
         new ProbeClientAdapter(exportFile, System.getProperty(SYSTEM_PROPERTY_UT_HOST, "127.0.0.1"),
@@ -96,10 +146,23 @@ public class ProbeClientAdapter {
 
     private final Console console;
 
+    private final RequestMetrics metrics;
+
+    private final ClientResources clientResources;
+
+    // Deployment name -> manager, an export file may be added or removed by the watcher thread
+    private final Map<String, DeploymentManager> deployments = new ConcurrentHashMap<>();
+
     private List<ObjectName> names;
 
     private Undertow undertow;
 
+    private MonitoringSampler sampler;
+
+    private PrefetchingJsonDataProvider prefetcher;
+
+    private ExportFileWatcher watcher;
+
     private MBeanServerConnection connection;
 
     private Integer currentIndex;
@@ -109,11 +172,24 @@ public class ProbeClientAdapter {
         this.undertowHost = undertowHost;
         this.undertowPort = undertowPort;
         this.console = new Console();
+        this.metrics = new RequestMetrics();
+        this.clientResources = ClientResources.load();
     }
 
     void start() {
+        boolean metricsRegistered = registerMetrics();
+        try {
+            startAdapter();
+        } finally {
+            if (metricsRegistered) {
+                unregisterMetrics();
+            }
+        }
+    }
+
+    private void startAdapter() {
         if (exportFile != null) {
-            out.println("Loading data from an export file: " + exportFile);
+            out.println("Loading data from an export " + (exportFile.isDirectory() ? "directory" : "file") + ": " + exportFile);
             startProcessing();
         } else {
             String jmxServiceUrl = System.getProperty(SYSTEM_PROPERTY_JMX_SERVICE_URL, DEFAULT_JMX_SERVICE_URL);
@@ -121,19 +197,19 @@ public class ProbeClientAdapter {
             try (JMXConnector jmxc = JMXConnectorFactory.connect(new JMXServiceURL(jmxServiceUrl), null)) {
 
                 connection = jmxc.getMBeanServerConnection();
-                ObjectName queryName;
-                try {
-                    queryName = new ObjectName(JsonDataProvider.class.getPackage().getName() + ":type=JsonData,context=*");
-                } catch (MalformedObjectNameException e) {
-                    throw new RuntimeException(e);
-                }
-                names = new ArrayList<>(connection.queryNames(queryName, null));
+                names = queryContainerNames();
 
                 if (names.isEmpty()) {
                     err.println("No Weld containers with Probe JMX enabled");
                     exit(1);
                 }
-                startProcessing();
+                startSampling();
+                try {
+                    startProcessing();
+                } finally {
+                    stopPrefetching();
+                    stopSampling();
+                }
             } catch (IOException e) {
                 throw new RuntimeException("Could not connect to a remote JMX server", e);
             }
@@ -145,6 +221,7 @@ public class ProbeClientAdapter {
         do {
             processCommand(command);
         } while (!isExit(command = commandPrompt()));
+        stopWatching();
         stopUndertow();
     }
 
@@ -152,7 +229,19 @@ public class ProbeClientAdapter {
         if ("c".equals(command) || "connect".equals(command)) {
             if (exportFile != null) {
                 currentIndex = 0;
-                restart(new ExportFileJsonDataProvider(exportFile));
+                if (exportFile.isDirectory()) {
+                    restart(new ExportFileRegistry(exportFile, getExportsMaxHeap()));
+                } else {
+                    ReloadableExportFileJsonDataProvider provider = new ReloadableExportFileJsonDataProvider(exportFile);
+                    restart(provider);
+                    // Old data are served until the reloaded data are ready
+                    Path fileName = exportFile.toPath().getFileName();
+                    watch(exportFile.getAbsoluteFile().getParentFile(), path -> path.getFileName().equals(fileName), file -> {
+                        if (file.exists()) {
+                            provider.reload();
+                        }
+                    });
+                }
             } else {
                 String indexStr = selectionPrompt();
                 if (isExit(indexStr)) {
@@ -218,45 +307,296 @@ public class ProbeClientAdapter {
 
     private void reconnect(Integer index, ObjectName mBeanName) {
         out.println("Connecting to the Weld container [" + index + "]: " + mBeanName);
-        restart(JMX.newMXBeanProxy(connection, mBeanName, JsonDataProvider.class));
+        boolean prefetch = Boolean.valueOf(System.getProperty(SYSTEM_PROPERTY_PREFETCH, "false"));
+        // Validate the configuration before the current prefetcher is stopped
+        long eventsWindow = getEventsWindow();
+        double prefetchRate = prefetch ? getPositiveDoubleProperty(SYSTEM_PROPERTY_PREFETCH_RATE, 5) : 0;
+        int prefetchBudget = prefetch ? (int) getLongProperty(SYSTEM_PROPERTY_PREFETCH_BUDGET, 10, 0, Integer.MAX_VALUE) : 0;
+        stopPrefetching();
+        JsonDataProvider direct = new MeteredJsonDataProvider(JMX.newMXBeanProxy(connection, mBeanName, JsonDataProvider.class), metrics);
+        JsonDataProvider remote = direct;
+        if (prefetch) {
+            prefetcher = new PrefetchingJsonDataProvider(remote, prefetchRate, prefetchBudget, PrefetchingJsonDataProvider.DEFAULT_TTL);
+            metrics.setPrefetcher(prefetcher);
+            remote = prefetcher;
+        }
+        restart(new LiveJsonDataProvider(remote, direct, eventsWindow, sampler, mBeanName.toString()));
+    }
+
+    private void stopPrefetching() {
+        if (prefetcher != null) {
+            metrics.setPrefetcher(null);
+            prefetcher.close();
+            prefetcher = null;
+        }
+    }
+
+    private void startSampling() {
+        // The value is specified in seconds, 0 disables sampling
+        long interval = TimeUnit.SECONDS.toMillis(getLongProperty(SYSTEM_PROPERTY_SAMPLING_INTERVAL, 5, 0));
+        if (interval == 0) {
+            return;
+        }
+        int capacity = (int) getLongProperty(SYSTEM_PROPERTY_SAMPLING_CAPACITY, 8640, 1, Integer.MAX_VALUE);
+        // All the containers are sampled, not only the connected one - the containers deployed later are sampled too
+        Map<String, JsonDataProvider> proxies = new ConcurrentHashMap<>();
+        sampler = new MonitoringSampler(() -> {
+            Map<String, JsonDataProvider> containers = new LinkedHashMap<>();
+            try {
+                for (ObjectName name : queryContainerNames()) {
+                    containers.put(name.toString(), proxies.computeIfAbsent(name.toString(),
+                            key -> new MeteredJsonDataProvider(JMX.newMXBeanProxy(connection, name, JsonDataProvider.class), metrics)));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return containers;
+        }, interval, capacity);
+    }
+
+    private List<ObjectName> queryContainerNames() throws IOException {
+        ObjectName queryName;
+        try {
+            queryName = new ObjectName(JsonDataProvider.class.getPackage().getName() + ":type=JsonData,context=*");
+        } catch (MalformedObjectNameException e) {
+            throw new RuntimeException(e);
+        }
+        return new ArrayList<>(connection.queryNames(queryName, null));
+    }
+
+    private void stopSampling() {
+        if (sampler != null) {
+            sampler.close();
+            sampler = null;
+        }
     }
 
-    private void restart(JsonDataProvider jsonDataProvider) {
+    private void restart(AdapterJsonDataProvider jsonDataProvider) {
+        stopWatching();
+        stopUndertow();
+        out.println("Starting Undertow...");
+        PathHandler path = Handlers.path(Handlers.redirect(PROBE_CLIENT_ADAPTER_APP)).addExactPath(METRICS_PATH, this::sendMetrics)
+                .addPrefixPath(PROBE_CLIENT_ADAPTER_APP, deploy(PROBE_CLIENT_ADAPTER_APP, "probe-jmx.war", jsonDataProvider));
+        startUndertow(path);
 
+        StringBuilder info = new StringBuilder();
+        info.append("Weld Probe HTML client available at: ");
+        info.append(getUrl(PROBE_CLIENT_ADAPTER_APP));
+        info.append(SimpleProbeFilter.REST_URL_PATTERN_BASE);
+        info.append(System.lineSeparator());
+        out.println(info);
+    }
+
+    private void restart(ExportFileRegistry registry) {
+        stopWatching();
         stopUndertow();
         out.println("Starting Undertow...");
+        PathHandler path = Handlers.path(Handlers.redirect(PROBE_CLIENT_ADAPTER_APP)).addExactPath(METRICS_PATH, this::sendMetrics)
+                .addPrefixPath(PROBE_CLIENT_ADAPTER_APP, new ExportIndexHandler(registry, "/" + PROBE_CLIENT_ADAPTER_APP));
+        for (String name : registry.getNames()) {
+            // Each export is served under its own path, the data is loaded on first access
+            path.addPrefixPath(getContextPath(name), deploy(getContextPath(name), getDeploymentName(name), registry.getProvider(name)));
+        }
+        startUndertow(path);
+        watch(registry.getDirectory(), p -> p.getFileName().toString().endsWith(ExportFileRegistry.EXPORT_FILE_SUFFIX), file -> {
+            String name = registry.getName(file);
+            if (!file.exists()) {
+                if (name != null) {
+                    registry.remove(name);
+                    path.removePrefixPath(getContextPath(name));
+                    undeploy(getDeploymentName(name));
+                }
+            } else if (name != null) {
+                // Old data are served until the reloaded data are ready
+                registry.reload(name);
+            } else {
+                name = registry.add(file);
+                path.addPrefixPath(getContextPath(name), deploy(getContextPath(name), getDeploymentName(name), registry.getProvider(name)));
+            }
+        });
+
+        StringBuilder info = new StringBuilder();
+        info.append("Index of ");
+        info.append(registry.getNames().size());
+        info.append(" export files available at: ");
+        info.append(getUrl(PROBE_CLIENT_ADAPTER_APP));
+        info.append("/");
+        info.append(System.lineSeparator());
+        out.println(info);
+    }
 
+    private HttpHandler deploy(String contextPath, String deploymentName, AdapterJsonDataProvider jsonDataProvider) {
+        ClientResources.Assets clientAssets = clientResources.forContextPath("/" + contextPath);
         DeploymentInfo servletBuilder = Servlets.deployment().setClassLoader(ProbeClientAdapter.class.getClassLoader())
-                .setContextPath("/" + PROBE_CLIENT_ADAPTER_APP).setDeploymentName("probe-jmx.war")
+                .setContextPath("/" + contextPath).setDeploymentName(deploymentName)
                 .addFilter(Servlets.filter(PROBE_FILTER_NAME, SimpleProbeFilter.class, new InstanceFactory<SimpleProbeFilter>() {
                     @Override
                     public InstanceHandle<SimpleProbeFilter> createInstance() throws InstantiationException {
-                        return new ImmediateInstanceHandle<SimpleProbeFilter>(new SimpleProbeFilter(jsonDataProvider));
+                        return new ImmediateInstanceHandle<SimpleProbeFilter>(new SimpleProbeFilter(jsonDataProvider, metrics, clientAssets));
                     }
                 })).addFilterUrlMapping(PROBE_FILTER_NAME, "/*", DispatcherType.REQUEST);
 
         DeploymentManager manager = Servlets.defaultContainer().addDeployment(servletBuilder);
+        deployments.put(deploymentName, manager);
         manager.deploy();
-        PathHandler path;
         try {
-            path = Handlers.path(Handlers.redirect(PROBE_CLIENT_ADAPTER_APP)).addPrefixPath(PROBE_CLIENT_ADAPTER_APP, manager.start());
+            return manager.start();
         } catch (ServletException e) {
             throw new RuntimeException(e);
         }
-        undertow = Undertow.builder().addHttpListener(undertowPort, undertowHost).setHandler(path).build();
+    }
+
+    /**
+     * Stop the deployment so that the filter and the data provider it holds may be garbage collected.
+     *
+     * @param deploymentName
+     */
+    private void undeploy(String deploymentName) {
+        DeploymentManager manager = deployments.remove(deploymentName);
+        if (manager == null) {
+            return;
+        }
+        // The deployment is not available once undeployed
+        DeploymentInfo deploymentInfo = manager.getDeployment().getDeploymentInfo();
+        try {
+            manager.stop();
+        } catch (ServletException e) {
+            err.println("Unable to stop the deployment " + deploymentName + ": " + e.getMessage());
+        }
+        manager.undeploy();
+        Servlets.defaultContainer().removeDeployment(deploymentInfo);
+    }
+
+    private void sendMetrics(HttpServerExchange exchange) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, RequestMetrics.CONTENT_TYPE);
+        exchange.getResponseSender().send(metrics.toPrometheusText());
+    }
+
+    private boolean registerMetrics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(metrics, AdapterMetricsMXBean.class, true),
+                    new ObjectName(RequestMetrics.OBJECT_NAME));
+            return true;
+        } catch (JMException e) {
+            // E.g. another adapter is running in the same JVM
+            err.println("Unable to register the metrics MBean: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void unregisterMetrics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(RequestMetrics.OBJECT_NAME));
+        } catch (JMException ignored) {
+        }
+    }
+
+    private void startUndertow(HttpHandler handler) {
+        undertow = Undertow.builder().addHttpListener(undertowPort, undertowHost).setHandler(handler).build();
         undertow.start();
+    }
 
-        StringBuilder info = new StringBuilder();
-        info = new StringBuilder();
-        info.append("Weld Probe HTML client available at: http://");
-        info.append(undertowHost);
-        info.append(":");
-        info.append(undertowPort);
-        info.append("/");
-        info.append(PROBE_CLIENT_ADAPTER_APP);
-        info.append("/weld-probe");
-        info.append(System.lineSeparator());
-        out.println(info);
+    private void watch(File directory, Predicate<Path> filter, Consumer<File> changeHandler) {
+        if (!Boolean.valueOf(System.getProperty(SYSTEM_PROPERTY_WATCH_EXPORTS, "true"))) {
+            return;
+        }
+        try {
+            watcher = new ExportFileWatcher(directory.toPath(), filter, changeHandler);
+        } catch (IOException e) {
+            err.println("Unable to watch export files: " + e.getMessage());
+        }
+    }
+
+    private void stopWatching() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException ignored) {
+            }
+            watcher = null;
+        }
+    }
+
+    private String getDeploymentName(String exportName) {
+        return "probe-" + exportName + ".war";
+    }
+
+    private String getContextPath(String exportName) {
+        return PROBE_CLIENT_ADAPTER_APP + "/" + exportName;
+    }
+
+    private String getUrl(String path) {
+        return "http://" + undertowHost + ":" + undertowPort + "/" + path;
+    }
+
+    private static long getEventsWindow() {
+        // The value is specified in minutes
+        return TimeUnit.MINUTES.toMillis(getLongProperty(SYSTEM_PROPERTY_EVENTS_WINDOW, 60, 1));
+    }
+
+    private static long getExportsMaxHeap() {
+        // The value is specified in megabytes, half of the max heap is used by default
+        long maxHeap = getLongProperty(SYSTEM_PROPERTY_EXPORTS_MAX_HEAP, -1, 1);
+        return maxHeap != -1 ? maxHeap * 1024 * 1024 : Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    /**
+     *
+     * @param name
+     * @param defaultValue
+     * @param min
+     * @return the value of the system property or the default value if not set
+     * @throws IllegalStateException if the value is not a number or is less than the min value
+     */
+    private static long getLongProperty(String name, long defaultValue, long min) {
+        return getLongProperty(name, defaultValue, min, Long.MAX_VALUE);
+    }
+
+    /**
+     *
+     * @param name
+     * @param defaultValue
+     * @param min
+     * @param max
+     * @return the value of the system property or the default value if not set
+     * @throws IllegalStateException if the value is not a number or is out of the range
+     */
+    private static long getLongProperty(String name, long defaultValue, long min, long max) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalStateException("Invalid value of " + name + ": " + value + " - "
+                + (max == Long.MAX_VALUE ? "a number greater than or equal to " + min : "a number from " + min + " to " + max) + " is expected");
+    }
+
+    /**
+     *
+     * @param name
+     * @param defaultValue
+     * @return the value of the system property or the default value if not set
+     * @throws IllegalStateException if the value is not a positive number
+     */
+    private static double getPositiveDoubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            if (parsed > 0 && !Double.isInfinite(parsed)) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalStateException("Invalid value of " + name + ": " + value + " - a number greater than 0 is expected");
     }
 
     private void stopUndertow() {
@@ -264,6 +604,10 @@ public class ProbeClientAdapter {
             out.println("Stopping Undertow...");
             undertow.stop();
         }
+        // All the handlers are deployed again on restart
+        for (String deploymentName : new ArrayList<>(deployments.keySet())) {
+            undeploy(deploymentName);
+        }
     }
 
     private static class Console {
@@ -0,0 +1,56 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Serves the data loaded from an export file until the reloaded data are ready.
+ */
+class ReloadableExportFileJsonDataProvider extends DelegatingJsonDataProvider {
+
+    private static final Logger LOGGER = Logger.getLogger(ReloadableExportFileJsonDataProvider.class.getName());
+
+    private final File exportFile;
+
+    private volatile ExportFileJsonDataProvider delegate;
+
+    ReloadableExportFileJsonDataProvider(File exportFile) {
+        this.exportFile = exportFile;
+        this.delegate = new ExportFileJsonDataProvider(exportFile);
+    }
+
+    File getExportFile() {
+        return exportFile;
+    }
+
+    /**
+     * Loads the data again and reuses the entries which did not change. The current data are replaced once the new data are ready.
+     */
+    void reload() {
+        LOGGER.info("Reloading export file: " + exportFile);
+        delegate = new ExportFileJsonDataProvider(exportFile, delegate);
+        LOGGER.info("Export file reloaded: " + exportFile);
+    }
+
+    @Override
+    protected AdapterJsonDataProvider delegate() {
+        return delegate;
+    }
+
+}
@@ -0,0 +1,378 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the metrics of the requests per resource and of the remote calls per {@link JsonDataProvider} method. All the counters and histograms are
+ * lock-free, i.e. the cost of recording is negligible. The durations are recorded in microseconds.
+ * <p>
+ * The remote calls and the cache lookups made by the thread handling a request are also attributed to the resource of the request. Remote calls made
+ * in the background, e.g. prefetching or sampling, are only included in the metrics of the remote calls.
+ */
+class RequestMetrics implements AdapterMetricsMXBean {
+
+    static final String OBJECT_NAME = JsonDataProvider.class.getPackage().getName() + ":type=AdapterMetrics";
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=" + Strings.ENCODING_UTF8;
+
+    private static final String PREFIX = "weld_probe_";
+
+    // Upper bounds of the Prometheus histogram buckets in seconds
+    private static final double[] BUCKETS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+    private static final ThreadLocal<Request> CURRENT = new ThreadLocal<>();
+
+    private final ConcurrentMap<String, ResourceMetrics> resources = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CallMetrics> remoteCalls = new ConcurrentHashMap<>();
+
+    private volatile PrefetchingJsonDataProvider prefetcher;
+
+    /**
+     * Starts a request of the given resource. The request must be ended by the same thread.
+     *
+     * @param resource
+     * @return the request
+     */
+    Request start(String resource) {
+        Request request = new Request(getResourceMetrics(resource));
+        CURRENT.set(request);
+        return request;
+    }
+
+    /**
+     *
+     * @param method
+     * @param nanos
+     * @param failed
+     */
+    void remoteCall(String method, long nanos, boolean failed) {
+        CallMetrics metrics = remoteCalls.get(method);
+        if (metrics == null) {
+            metrics = remoteCalls.computeIfAbsent(method, m -> new CallMetrics());
+        }
+        metrics.record(nanos, failed);
+        Request request = CURRENT.get();
+        if (request != null) {
+            request.remoteCalls++;
+            request.remoteNanos += nanos;
+        }
+    }
+
+    /**
+     *
+     * @param prefetcher the prefetcher of the connected container, may be <code>null</code>
+     */
+    void setPrefetcher(PrefetchingJsonDataProvider prefetcher) {
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * Attributes a cache hit to the request handled by the current thread, if any.
+     *
+     * @param cache
+     */
+    static void cacheHit(Cache cache) {
+        Request request = CURRENT.get();
+        if (request != null) {
+            request.cacheHits[cache.ordinal()]++;
+        }
+    }
+
+    /**
+     * Attributes a cache miss to the request handled by the current thread, if any.
+     *
+     * @param cache
+     */
+    static void cacheMiss(Cache cache) {
+        Request request = CURRENT.get();
+        if (request != null) {
+            request.cacheMisses[cache.ordinal()]++;
+        }
+    }
+
+    @Override
+    public List<ResourceStats> getResources() {
+        List<ResourceStats> stats = new ArrayList<>();
+        for (Map.Entry<String, ResourceMetrics> entry : sortedResources(resources).entrySet()) {
+            ResourceMetrics metrics = entry.getValue();
+            long hits = 0;
+            long misses = 0;
+            for (Cache cache : Cache.values()) {
+                hits += metrics.cacheHits[cache.ordinal()].sum();
+                misses += metrics.cacheMisses[cache.ordinal()].sum();
+            }
+            stats.add(new ResourceStats(entry.getKey(), metrics.requests.toStats(entry.getKey()), metrics.bytesOut.sum(), metrics.remoteCalls.sum(),
+                    toMillis(metrics.remoteTime.sum()), hits, misses));
+        }
+        return stats;
+    }
+
+    @Override
+    public List<CallStats> getRemoteCalls() {
+        List<CallStats> stats = new ArrayList<>();
+        for (Map.Entry<String, CallMetrics> entry : sorted(remoteCalls).entrySet()) {
+            stats.add(entry.getValue().toStats(entry.getKey()));
+        }
+        return stats;
+    }
+
+    @Override
+    public long getPrefetches() {
+        PrefetchingJsonDataProvider current = prefetcher;
+        return current != null ? current.getPrefetches() : 0;
+    }
+
+    /**
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        Map<String, ResourceMetrics> resources = sortedResources(this.resources);
+        Map<String, CallMetrics> remoteCalls = sorted(this.remoteCalls);
+
+        type(text, "requests_seconds", "histogram", "Time spent handling the requests of a resource");
+        resources.forEach((name, metrics) -> histogram(text, "requests_seconds", label("resource", name), metrics.requests.durations));
+        type(text, "request_errors_total", "counter", "Requests which failed or resulted in an error response");
+        resources.forEach((name, metrics) -> sample(text, "request_errors_total", label("resource", name), metrics.requests.errors.sum()));
+        type(text, "response_bytes_total", "counter", "Bytes written to the response body");
+        resources.forEach((name, metrics) -> sample(text, "response_bytes_total", label("resource", name), metrics.bytesOut.sum()));
+        type(text, "request_remote_calls_total", "counter", "Remote calls made while handling the requests of a resource");
+        resources.forEach((name, metrics) -> sample(text, "request_remote_calls_total", label("resource", name), metrics.remoteCalls.sum()));
+        type(text, "request_remote_seconds_total", "counter", "Time spent in remote calls while handling the requests of a resource");
+        resources.forEach(
+                (name, metrics) -> sample(text, "request_remote_seconds_total", label("resource", name), toSeconds(metrics.remoteTime.sum())));
+        type(text, "cache_hits_total", "counter", "Cache hits while handling the requests of a resource");
+        resources.forEach((name, metrics) -> {
+            for (Cache cache : Cache.values()) {
+                if (metrics.isCacheUsed(cache)) {
+                    sample(text, "cache_hits_total", label("resource", name) + "," + label("cache", cache.toString()),
+                            metrics.cacheHits[cache.ordinal()].sum());
+                }
+            }
+        });
+        type(text, "cache_misses_total", "counter", "Cache misses while handling the requests of a resource");
+        resources.forEach((name, metrics) -> {
+            for (Cache cache : Cache.values()) {
+                if (metrics.isCacheUsed(cache)) {
+                    sample(text, "cache_misses_total", label("resource", name) + "," + label("cache", cache.toString()),
+                            metrics.cacheMisses[cache.ordinal()].sum());
+                }
+            }
+        });
+
+        type(text, "remote_call_seconds", "histogram", "Duration of the remote JsonDataProvider calls");
+        remoteCalls.forEach((name, metrics) -> histogram(text, "remote_call_seconds", label("method", name), metrics.durations));
+        type(text, "remote_call_errors_total", "counter", "Remote JsonDataProvider calls which failed");
+        remoteCalls.forEach((name, metrics) -> sample(text, "remote_call_errors_total", label("method", name), metrics.errors.sum()));
+
+        type(text, "prefetches_total", "counter", "Results prefetched from the connected container");
+        sample(text, "prefetches_total", null, getPrefetches());
+        return text.toString();
+    }
+
+    private ResourceMetrics getResourceMetrics(String resource) {
+        ResourceMetrics metrics = resources.get(resource);
+        if (metrics == null) {
+            // Java 8 computeIfAbsent() locks even if the mapping exists
+            metrics = resources.computeIfAbsent(resource, r -> new ResourceMetrics());
+        }
+        return metrics;
+    }
+
+    private static <T> Map<String, T> sorted(Map<String, T> map) {
+        return new TreeMap<>(map);
+    }
+
+    private static Map<String, ResourceMetrics> sortedResources(Map<String, ResourceMetrics> map) {
+        // Resource names are enum constant names
+        Map<String, ResourceMetrics> sorted = new TreeMap<>();
+        map.forEach((name, metrics) -> sorted.put(name.toLowerCase(Locale.ENGLISH), metrics));
+        return sorted;
+    }
+
+    private static void type(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, Object value) {
+        text.append(PREFIX).append(name);
+        if (labels != null) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ').append(value).append('\n');
+    }
+
+    private static void histogram(StringBuilder text, String name, String labels, ConcurrentDurationHistogram histogram) {
+        DurationHistogram snapshot = histogram.snapshot();
+        for (double bucket : BUCKETS) {
+            sample(text, name + "_bucket", labels + "," + label("le", Double.toString(bucket)),
+                    snapshot.getCountAtOrBelow((long) (bucket * 1_000_000)));
+        }
+        sample(text, name + "_bucket", labels + "," + label("le", "+Inf"), snapshot.getCount());
+        sample(text, name + "_sum", labels, toSeconds(histogram.getSum()));
+        sample(text, name + "_count", labels, snapshot.getCount());
+    }
+
+    private static String label(String name, String value) {
+        // Resource and method names do not need escaping
+        return name + "=\"" + value + "\"";
+    }
+
+    private static double toSeconds(long micros) {
+        return micros / 1_000_000.0;
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * The caches the hits and misses are recorded for.
+     */
+    enum Cache {
+
+        PREFETCH, EXPORTS,;
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ENGLISH);
+        }
+
+    }
+
+    /**
+     * A request handled by a single thread, i.e. the fields do not need to be synchronized.
+     */
+    static final class Request {
+
+        private final ResourceMetrics metrics;
+
+        private final long start;
+
+        private int remoteCalls;
+
+        private long remoteNanos;
+
+        private final int[] cacheHits = new int[Cache.values().length];
+
+        private final int[] cacheMisses = new int[Cache.values().length];
+
+        private boolean failed;
+
+        private Request(ResourceMetrics metrics) {
+            this.metrics = metrics;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * The request failed even though an error response may not have been sent.
+         */
+        void failed() {
+            failed = true;
+        }
+
+        /**
+         *
+         * @param status the response status
+         * @param bytesOut the number of bytes written to the response body
+         */
+        void end(int status, long bytesOut) {
+            CURRENT.remove();
+            metrics.requests.record(System.nanoTime() - start, failed || status >= 400);
+            metrics.bytesOut.add(bytesOut);
+            if (remoteCalls > 0) {
+                metrics.remoteCalls.add(remoteCalls);
+                metrics.remoteTime.add(TimeUnit.NANOSECONDS.toMicros(remoteNanos));
+            }
+            for (int i = 0; i < cacheHits.length; i++) {
+                if (cacheHits[i] > 0) {
+                    metrics.cacheHits[i].add(cacheHits[i]);
+                }
+                if (cacheMisses[i] > 0) {
+                    metrics.cacheMisses[i].add(cacheMisses[i]);
+                }
+            }
+        }
+
+    }
+
+    private static final class CallMetrics {
+
+        private final ConcurrentDurationHistogram durations = new ConcurrentDurationHistogram();
+
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean failed) {
+            durations.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        CallStats toStats(String name) {
+            DurationHistogram snapshot = durations.snapshot();
+            return new CallStats(name, snapshot.getCount(), errors.sum(),
+                    snapshot.getCount() > 0 ? toMillis(durations.getSum()) / snapshot.getCount() : 0,
+                    toMillis(snapshot.getValueAtQuantile(0.5)), toMillis(snapshot.getValueAtQuantile(0.9)), toMillis(snapshot.getValueAtQuantile(0.99)),
+                    toMillis(snapshot.getMax()));
+        }
+
+    }
+
+    private static final class ResourceMetrics {
+
+        private final CallMetrics requests = new CallMetrics();
+
+        private final LongAdder bytesOut = new LongAdder();
+
+        private final LongAdder remoteCalls = new LongAdder();
+
+        // Microseconds
+        private final LongAdder remoteTime = new LongAdder();
+
+        private final LongAdder[] cacheHits = adders(Cache.values().length);
+
+        private final LongAdder[] cacheMisses = adders(Cache.values().length);
+
+        boolean isCacheUsed(Cache cache) {
+            return cacheHits[cache.ordinal()].sum() + cacheMisses[cache.ordinal()].sum() > 0;
+        }
+
+        private static LongAdder[] adders(int length) {
+            LongAdder[] adders = new LongAdder[length];
+            for (int i = 0; i < length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+    }
+
+}
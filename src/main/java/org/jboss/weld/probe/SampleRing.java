@@ -0,0 +1,129 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.TIMESTAMP;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * A fixed-size ring buffer of samples of a single metric. The timestamps and values are kept in primitive arrays, once the buffer is full the oldest
+ * sample is overwritten.
+ * <p>
+ * This class is thread-safe.
+ */
+class SampleRing {
+
+    static final String MIN = "min";
+
+    static final String MAX = "max";
+
+    static final String AVG = "avg";
+
+    private final long[] timestamps;
+
+    private final long[] values;
+
+    // The index of the next sample
+    private int next;
+
+    private int size;
+
+    /**
+     *
+     * @param capacity the max number of samples
+     * @throws IllegalArgumentException if the capacity is less than 1
+     */
+    SampleRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be greater than zero: " + capacity);
+        }
+        this.timestamps = new long[capacity];
+        this.values = new long[capacity];
+    }
+
+    synchronized void add(long timestamp, long value) {
+        timestamps[next] = timestamp;
+        values[next] = value;
+        next = (next + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * The samples are split into at most the given number of buckets of the same duration. Each bucket is represented by its first timestamp and
+     * the min, max and average value of its samples. Empty buckets are omitted.
+     *
+     * @param since only the samples with the timestamp greater or equal to this value are taken into account
+     * @param points the max number of points
+     * @return the downsampled data in chronological order
+     */
+    JsonArray downsample(long since, int points) {
+        long[] sampleTimestamps;
+        long[] sampleValues;
+        int count = 0;
+        synchronized (this) {
+            sampleTimestamps = new long[size];
+            sampleValues = new long[size];
+            int oldest = size < timestamps.length ? 0 : next;
+            for (int i = 0; i < size; i++) {
+                int idx = (oldest + i) % timestamps.length;
+                if (timestamps[idx] >= since) {
+                    sampleTimestamps[count] = timestamps[idx];
+                    sampleValues[count] = values[idx];
+                    count++;
+                }
+            }
+        }
+        JsonArray data = new JsonArray();
+        if (count == 0) {
+            return data;
+        }
+        long first = sampleTimestamps[0];
+        long last = sampleTimestamps[count - 1];
+        long width = Math.max(1, (last - first) / Math.max(1, points) + 1);
+        int idx = 0;
+        while (idx < count) {
+            long bucketStart = first + ((sampleTimestamps[idx] - first) / width) * width;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long sum = 0;
+            int bucketSize = 0;
+            while (idx < count && sampleTimestamps[idx] < bucketStart + width) {
+                min = Math.min(min, sampleValues[idx]);
+                max = Math.max(max, sampleValues[idx]);
+                sum += sampleValues[idx];
+                bucketSize++;
+                idx++;
+            }
+            JsonObject point = new JsonObject();
+            point.addProperty(TIMESTAMP, bucketStart);
+            point.addProperty(MIN, min);
+            point.addProperty(MAX, max);
+            point.addProperty(AVG, Math.round(sum * 100.0 / bucketSize) / 100.0);
+            data.add(point);
+        }
+        return data;
+    }
+
+}
@@ -41,10 +41,16 @@ public class SimpleProbeFilter implements Filter {
 
     static final Logger LOGGER = Logger.getLogger(SimpleProbeFilter.class.getName());
 
-    private JsonDataProvider jsonDataProvider;
+    private AdapterJsonDataProvider jsonDataProvider;
 
-    SimpleProbeFilter(JsonDataProvider jsonDataProvider) {
+    private final RequestMetrics metrics;
+
+    private final ClientResources.Assets clientAssets;
+
+    SimpleProbeFilter(AdapterJsonDataProvider jsonDataProvider, RequestMetrics metrics, ClientResources.Assets clientAssets) {
         this.jsonDataProvider = jsonDataProvider;
+        this.metrics = metrics;
+        this.clientAssets = clientAssets;
     }
 
     @Override
@@ -87,6 +93,18 @@ public class SimpleProbeFilter implements Filter {
 
     private void processResourceRequest(HttpServletRequest req, HttpServletResponse resp, HttpMethod httpMethod, String[] resourcePathParts)
             throws IOException {
+        AdapterResource adapterResource = matchAdapterResource(resourcePathParts);
+        if (adapterResource != null) {
+            // An adapter resource which extends a Probe resource has the same name
+            RequestMetrics.Request request = metrics.start(adapterResource.name());
+            MeteredResponse meteredResp = new MeteredResponse(resp);
+            try {
+                processAdapterResourceRequest(req, meteredResp, httpMethod, resourcePathParts, adapterResource, request);
+            } finally {
+                request.end(meteredResp.getStatus(), meteredResp.getBytes());
+            }
+            return;
+        }
         Resource resource;
         if (resourcePathParts.length == 0) {
             resource = Resource.CLIENT_RESOURCE;
@@ -98,13 +116,55 @@ public class SimpleProbeFilter implements Filter {
             }
         }
         ProbeLogger.LOG.resourceMatched(resource, req.getRequestURI());
+        RequestMetrics.Request request = metrics.start(resource.name());
+        MeteredResponse meteredResp = new MeteredResponse(resp);
+        try {
+            if (Resource.CLIENT_RESOURCE.equals(resource) && HttpMethod.GET.equals(httpMethod)
+                    && clientAssets.send(resourcePathParts, req, meteredResp)) {
+                return;
+            }
+            resource.handle(httpMethod, jsonDataProvider, resourcePathParts, req, meteredResp);
+        } catch (Exception e) {
+            request.failed();
+            LOGGER.log(java.util.logging.Level.WARNING, "Cannot handle " + httpMethod + " for " + resource, e.getCause() != null ? e.getCause() : e);
+        } finally {
+            request.end(meteredResp.getStatus(), meteredResp.getBytes());
+        }
+    }
+
+    private void processAdapterResourceRequest(HttpServletRequest req, HttpServletResponse resp, HttpMethod httpMethod, String[] resourcePathParts,
+            AdapterResource resource, RequestMetrics.Request request) throws IOException {
+        LOGGER.fine(() -> "Adapter resource " + resource + " matched for " + req.getRequestURI());
         try {
             resource.handle(httpMethod, jsonDataProvider, resourcePathParts, req, resp);
+        } catch (ResourceNotAvailableException e) {
+            // E.g. the data are not available for the current data provider
+            sendError(resp, HttpServletResponse.SC_NOT_IMPLEMENTED);
+        } catch (InvalidRequestException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST);
         } catch (Exception e) {
+            request.failed();
             LOGGER.log(java.util.logging.Level.WARNING, "Cannot handle " + httpMethod + " for " + resource, e.getCause() != null ? e.getCause() : e);
         }
     }
 
+    private void sendError(HttpServletResponse resp, int status) throws IOException {
+        if (!resp.isCommitted()) {
+            resp.reset();
+            Resource.Handler.setCorsHeaders(resp);
+            resp.sendError(status);
+        }
+    }
+
+    private AdapterResource matchAdapterResource(String[] resourcePathParts) {
+        for (AdapterResource resource : AdapterResource.values()) {
+            if (resource.matches(resourcePathParts)) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
     private Resource matchResource(String[] resourcePathParts) {
         for (Resource resource : Resource.values()) {
             if (resource.matches(resourcePathParts)) {
@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.BDA_ID;
+import static org.jboss.weld.probe.Strings.BEAN_CLASS;
+import static org.jboss.weld.probe.Strings.DECLARING_CLASS;
+import static org.jboss.weld.probe.Strings.DESCRIPTION;
+import static org.jboss.weld.probe.Strings.KIND;
+import static org.jboss.weld.probe.Strings.METHOD_NAME;
+import static org.jboss.weld.probe.Strings.OBSERVED_TYPE;
+import static org.jboss.weld.probe.Strings.QUALIFIERS;
+import static org.jboss.weld.probe.Strings.RECEPTION;
+import static org.jboss.weld.probe.Strings.SCOPE;
+import static org.jboss.weld.probe.Strings.STEREOTYPES;
+import static org.jboss.weld.probe.Strings.TX_PHASE;
+import static org.jboss.weld.probe.Strings.TYPE;
+import static org.jboss.weld.probe.Strings.TYPES;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Deduplicates the strings which repeat across the parsed JSON data, i.e. the member names and the values of the members which hold class names,
+ * types, qualifiers, scopes, etc. A pool is supposed to be used for a single load of an export file and discarded afterwards, the deduplicated
+ * strings are retained by the parsed data only.
+ * <p>
+ * This class is thread-safe.
+ */
+class StringPool {
+
+    // The members whose string values (or the string elements of array values) are deduplicated
+    private static final Set<String> POOLED_MEMBERS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(BEAN_CLASS, TYPES, QUALIFIERS, SCOPE,
+            OBSERVED_TYPE, KIND, TYPE, DECLARING_CLASS, METHOD_NAME, DESCRIPTION, BDA_ID, RECEPTION, TX_PHASE, STEREOTYPES)));
+
+    // Numbers are parsed by Gson itself so that these are represented exactly the same way as if parsed by JsonParser
+    private static final TypeAdapter<JsonElement> ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
+
+    private final Map<String, String> pool = new ConcurrentHashMap<>();
+
+    private final LongAdder duplicates = new LongAdder();
+
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     *
+     * @param value
+     * @return the pooled instance equal to the given value
+     */
+    String intern(String value) {
+        String pooled = pool.putIfAbsent(value, value);
+        if (pooled == null) {
+            return value;
+        }
+        duplicates.increment();
+        savedBytes.add(sizeOf(value));
+        return pooled;
+    }
+
+    /**
+     * Parses the JSON data the same way {@link com.google.gson.JsonParser} does but the strings are deduplicated.
+     *
+     * @param reader
+     * @return the parsed JSON tree
+     * @throws IOException
+     */
+    JsonElement parse(Reader reader) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+        JsonElement element = read(in, null);
+        if (in.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonSyntaxException("Did not consume the entire document.");
+        }
+        return element;
+    }
+
+    int size() {
+        return pool.size();
+    }
+
+    long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     *
+     * @return the estimated heap saved in bytes
+     */
+    long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    private JsonElement read(JsonReader in, String member) throws IOException {
+        switch (in.peek()) {
+            case STRING:
+                String value = in.nextString();
+                return new JsonPrimitive(member != null && POOLED_MEMBERS.contains(member) ? intern(value) : value);
+            case NUMBER:
+                return ELEMENT_ADAPTER.read(in);
+            case BOOLEAN:
+                return new JsonPrimitive(in.nextBoolean());
+            case NULL:
+                in.nextNull();
+                return JsonNull.INSTANCE;
+            case BEGIN_ARRAY:
+                JsonArray array = new JsonArray();
+                in.beginArray();
+                while (in.hasNext()) {
+                    // Array elements are pooled if the array itself is a value of a pooled member, e.g. types
+                    array.add(read(in, member));
+                }
+                in.endArray();
+                return array;
+            case BEGIN_OBJECT:
+                JsonObject object = new JsonObject();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = intern(in.nextName());
+                    object.add(name, read(in, name));
+                }
+                in.endObject();
+                return object;
+            default:
+                throw new IllegalArgumentException("Unexpected token: " + in.peek());
+        }
+    }
+
+    private static long sizeOf(String value) {
+        // A Java 8 string - header with fields + char array header + chars, aligned to 8 bytes
+        return align(24) + align(16 + 2L * value.length());
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7;
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A simple token bucket rate limiter. The bucket holds at most a single token, i.e. no bursts are allowed and the tokens are evenly spaced.
+ * <p>
+ * A token may be either acquired if available, or consumed unconditionally. Consumed tokens may result in a negative balance so that no token can be
+ * acquired until the balance is restored.
+ * <p>
+ * This class is thread-safe.
+ */
+class TokenBucket {
+
+    private final double tokensPerNano;
+
+    // Guarded by this
+    private double tokens;
+
+    // Guarded by this
+    private long lastRefill;
+
+    /**
+     *
+     * @param rate the number of tokens per second
+     */
+    TokenBucket(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+        this.tokensPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = 1;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Consumes a token even if there is none available.
+     */
+    synchronized void consume() {
+        refill();
+        tokens -= 1;
+    }
+
+    /**
+     *
+     * @return <code>true</code> if a token was acquired, <code>false</code> otherwise
+     */
+    synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(1, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.ID;
+import static org.jboss.weld.probe.Strings.TOTAL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class BeanGraphTest {
+
+    // a -> b -> c -> a is a cycle, a -> d, f -> d is only declared by d, e is isolated, the b -> c edge is declared twice
+    private static final String BEANS = "[{id:'a',kind:'MANAGED',beanClass:'org.A',dependencies:[{id:'b'},{id:'d'}]},"
+            + "{id:'b',dependencies:[{id:'c'}]},{id:'c',dependencies:[{id:'a'}],dependents:[{id:'b'}]},"
+            + "{id:'d',dependents:[{id:'a'},{id:'f'}]},{id:'e'}]";
+
+    private final BeanGraph graph = BeanGraph.of(new JsonParser().parse(BEANS).getAsJsonArray());
+
+    @Test
+    public void testSizeAndEdges() {
+        // f is only referenced from d
+        assertEquals(6, graph.size());
+        assertEquals(5, graph.edges());
+    }
+
+    @Test
+    public void testTransitiveDependenciesWithCycle() {
+        JsonObject result = parse(graph.getTransitive("a", false, 0));
+        assertEquals("a", result.get(ID).getAsString());
+        assertEquals("org.A", result.get(Strings.BEAN_CLASS).getAsString());
+        assertEquals(3, result.get(TOTAL).getAsInt());
+        // The start bean is not included even if reachable through the cycle
+        assertEquals(Arrays.asList("b", "d", "c"), ids(result));
+        assertDepths(result, 1, 1, 2);
+    }
+
+    @Test
+    public void testTransitiveDependents() {
+        JsonObject result = parse(graph.getTransitive("d", true, 0));
+        assertEquals(Arrays.asList("a", "f", "c", "b"), ids(result));
+        assertDepths(result, 1, 1, 2, 3);
+    }
+
+    @Test
+    public void testDepthLimit() {
+        assertEquals(Arrays.asList("b", "d"), ids(parse(graph.getTransitive("a", false, 1))));
+        assertEquals(Arrays.asList("b", "d", "c"), ids(parse(graph.getTransitive("a", false, 2))));
+        assertEquals(Arrays.asList("a", "f", "c"), ids(parse(graph.getTransitive("d", true, 2))));
+    }
+
+    @Test
+    public void testNoDependencies() {
+        JsonObject result = parse(graph.getTransitive("e", false, 0));
+        assertEquals(0, result.get(TOTAL).getAsInt());
+        assertEquals(0, result.get(DATA).getAsJsonArray().size());
+    }
+
+    @Test
+    public void testShortestPath() {
+        JsonObject result = parse(graph.getShortestPath("a", "c"));
+        assertEquals(Arrays.asList("a", "b", "c"), ids(result));
+        assertEquals(2, result.get(BeanGraph.LENGTH).getAsInt());
+        // Along the cycle
+        assertEquals(Arrays.asList("c", "a", "d"), ids(parse(graph.getShortestPath("c", "d"))));
+        // Declared by the dependency only
+        assertEquals(Arrays.asList("f", "d"), ids(parse(graph.getShortestPath("f", "d"))));
+    }
+
+    @Test
+    public void testShortestPathToItself() {
+        JsonObject result = parse(graph.getShortestPath("a", "a"));
+        assertEquals(Arrays.asList("a"), ids(result));
+        assertEquals(0, result.get(BeanGraph.LENGTH).getAsInt());
+    }
+
+    @Test
+    public void testShortestPathUnreachable() {
+        // Dependents are not followed
+        JsonObject result = parse(graph.getShortestPath("d", "a"));
+        assertEquals("d", result.get(BeanGraph.FROM).getAsString());
+        assertEquals("a", result.get(BeanGraph.TO).getAsString());
+        assertEquals(-1, result.get(BeanGraph.LENGTH).getAsInt());
+        assertTrue(ids(result).isEmpty());
+        assertTrue(ids(parse(graph.getShortestPath("e", "a"))).isEmpty());
+    }
+
+    @Test
+    public void testUnknownIds() {
+        assertIllegalArgument(() -> graph.getTransitive("unknown", false, 0));
+        assertIllegalArgument(() -> graph.getTransitive("unknown", true, 0));
+        assertIllegalArgument(() -> graph.getShortestPath("unknown", "a"));
+        assertIllegalArgument(() -> graph.getShortestPath("a", "unknown"));
+    }
+
+    @Test
+    public void testRanking() {
+        JsonObject fanIn = parse(graph.getRanking(true, 10));
+        assertEquals(BeanGraph.FAN_IN, fanIn.get(BeanGraph.BY).getAsString());
+        assertEquals(6, fanIn.get(TOTAL).getAsInt());
+        JsonObject first = fanIn.get(DATA).getAsJsonArray().get(0).getAsJsonObject();
+        assertEquals("d", first.get(ID).getAsString());
+        assertEquals(2, first.get(BeanGraph.FAN_IN).getAsInt());
+        assertEquals(0, first.get(BeanGraph.FAN_OUT).getAsInt());
+        // Ties are ordered by the node index, i.e. the order in which the beans were found
+        assertEquals(Arrays.asList("d", "a", "b", "c", "e", "f"), ids(fanIn));
+
+        JsonObject fanOut = parse(graph.getRanking(false, 2));
+        assertEquals(Arrays.asList("a", "b"), ids(fanOut));
+        assertEquals(2, fanOut.get(DATA).getAsJsonArray().get(0).getAsJsonObject().get(BeanGraph.FAN_OUT).getAsInt());
+    }
+
+    @Test
+    public void testEmptyGraph() {
+        BeanGraph empty = BeanGraph.of(new JsonArray());
+        assertEquals(0, empty.size());
+        assertEquals(0, empty.edges());
+        assertTrue(ids(parse(empty.getRanking(true, 10))).isEmpty());
+        assertIllegalArgument(() -> empty.getTransitive("a", false, 0));
+    }
+
+    private static JsonObject parse(String json) {
+        return new JsonParser().parse(json).getAsJsonObject();
+    }
+
+    private static List<String> ids(JsonObject result) {
+        List<String> ids = new ArrayList<>();
+        for (JsonElement element : result.get(DATA).getAsJsonArray()) {
+            ids.add(element.getAsJsonObject().get(ID).getAsString());
+        }
+        return ids;
+    }
+
+    private static void assertDepths(JsonObject result, int... depths) {
+        JsonArray data = result.get(DATA).getAsJsonArray();
+        assertEquals(depths.length, data.size());
+        for (int i = 0; i < depths.length; i++) {
+            assertEquals(depths[i], data.get(i).getAsJsonObject().get(BeanGraph.DEPTH).getAsInt());
+        }
+    }
+
+    private static void assertIllegalArgument(Runnable action) {
+        try {
+            action.run();
+            fail();
+        } catch (InvalidRequestException expected) {
+        }
+    }
+
+}
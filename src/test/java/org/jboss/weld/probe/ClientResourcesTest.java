@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.jboss.weld.probe.ClientResources.Asset;
+import org.jboss.weld.probe.ClientResources.Assets;
+import org.junit.Test;
+
+public class ClientResourcesTest {
+
+    private static final String BASE = "/ctx/weld-probe/";
+
+    private static final Pattern REFERENCE = Pattern.compile(Pattern.quote(BASE + "client/") + "([a-zA-Z_0-9-]+\\.\\w+)(\\?)?");
+
+    @Test
+    public void testAcceptsGzip() {
+        assertTrue(Assets.acceptsGzip("gzip"));
+        assertTrue(Assets.acceptsGzip("deflate, GZIP"));
+        assertTrue(Assets.acceptsGzip("deflate, gzip;q=0.5"));
+        assertTrue(Assets.acceptsGzip("br;q=1.0, gzip ; q=1"));
+        assertFalse(Assets.acceptsGzip("gzip;q=0"));
+        assertFalse(Assets.acceptsGzip("gzip;q=0.0, deflate"));
+        assertFalse(Assets.acceptsGzip("gzip;q=foo"));
+        assertFalse(Assets.acceptsGzip("deflate, br"));
+        assertFalse(Assets.acceptsGzip("x-gzip"));
+        assertFalse(Assets.acceptsGzip(""));
+        assertFalse(Assets.acceptsGzip(null));
+    }
+
+    @Test
+    public void testMatches() {
+        String etag = "\"abc\"";
+        assertTrue(Assets.matches("\"abc\"", etag));
+        assertTrue(Assets.matches("\"foo\", \"abc\"", etag));
+        assertTrue(Assets.matches("W/\"abc\"", etag));
+        assertTrue(Assets.matches("*", etag));
+        assertFalse(Assets.matches("\"abc-gzip\"", etag));
+        assertFalse(Assets.matches("abc", etag));
+        assertFalse(Assets.matches("\"foo\", W/\"bar\"", etag));
+        assertFalse(Assets.matches(null, etag));
+    }
+
+    @Test
+    public void testVersionReferences() {
+        Asset js = asset("probe.js", "var foo;");
+        Map<String, Asset> assets = Collections.singletonMap("probe.js", js);
+        String versioned = BASE + "client/probe.js?" + ClientResources.VERSION_PARAM + "=" + js.hash;
+        assertEquals("<script src=\"" + versioned + "\"></script>",
+                ClientResources.versionReferences("<script src=\"" + BASE + "client/probe.js\"></script>", REFERENCE, assets));
+        // Unknown assets and other paths are not modified
+        String text = "<img src=\"" + BASE + "client/missing.png\"><a href=\"" + BASE + "beans\">";
+        assertEquals(text, ClientResources.versionReferences(text, REFERENCE, assets));
+    }
+
+    @Test
+    public void testVersionReferencesWithQuery() {
+        Asset font = asset("font.eot", "font");
+        Map<String, Asset> assets = Collections.singletonMap("font.eot", font);
+        String text = "url('" + BASE + "client/font.eot?v=4.2.0#iefix') url('" + BASE + "client/font.eot')";
+        String versioned = BASE + "client/font.eot?" + ClientResources.VERSION_PARAM + "=" + font.hash;
+        assertEquals("url('" + versioned + "&v=4.2.0#iefix') url('" + versioned + "')", ClientResources.versionReferences(text, REFERENCE, assets));
+    }
+
+    private static Asset asset(String name, String content) {
+        return new Asset(Resource.detectContentType(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
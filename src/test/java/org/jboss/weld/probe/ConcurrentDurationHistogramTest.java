@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ConcurrentDurationHistogramTest {
+
+    @Test
+    public void testRecording() throws InterruptedException {
+        ConcurrentDurationHistogram histogram = new ConcurrentDurationHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 1; j <= 10000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        DurationHistogram snapshot = histogram.snapshot();
+        assertEquals(40000, snapshot.getCount());
+        assertEquals(10000, snapshot.getMax());
+        assertEquals(4 * 10000L * 10001 / 2, histogram.getSum());
+        long median = snapshot.getValueAtQuantile(0.5);
+        assertTrue("5000 ~ " + median, median >= 5000 && median - 5000 <= 5000 / DurationHistogram.SUB_BUCKETS);
+    }
+
+    @Test
+    public void testOutOfRange() {
+        ConcurrentDurationHistogram histogram = new ConcurrentDurationHistogram();
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+        DurationHistogram snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(ConcurrentDurationHistogram.MAX_VALUE, snapshot.getMax());
+        assertEquals(1, snapshot.getCountAtOrBelow(0));
+        assertEquals(ConcurrentDurationHistogram.MAX_VALUE, histogram.getSum());
+    }
+
+    @Test
+    public void testEmpty() {
+        DurationHistogram snapshot = new ConcurrentDurationHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtQuantile(0.5));
+        assertEquals(0, snapshot.getCountAtOrBelow(100));
+    }
+
+    @Test
+    public void testCountAtOrBelow() {
+        ConcurrentDurationHistogram histogram = new ConcurrentDurationHistogram();
+        for (int i = 0; i < DurationHistogram.SUB_BUCKETS; i++) {
+            histogram.record(i);
+        }
+        histogram.record(1000000);
+        DurationHistogram snapshot = histogram.snapshot();
+        // Small values are exact
+        assertEquals(11, snapshot.getCountAtOrBelow(10));
+        assertEquals(DurationHistogram.SUB_BUCKETS, snapshot.getCountAtOrBelow(999999 / 2));
+        assertEquals(DurationHistogram.SUB_BUCKETS + 1, snapshot.getCountAtOrBelow(1000000));
+        assertEquals(DurationHistogram.SUB_BUCKETS + 1, snapshot.getCountAtOrBelow(Long.MAX_VALUE));
+    }
+
+}
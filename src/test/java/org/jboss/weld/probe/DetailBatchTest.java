@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class DetailBatchTest {
+
+    @Test
+    public void testParseIds() {
+        assertEquals(Arrays.asList("3", "1", "2"), new ArrayList<>(DetailBatch.parseIds("3,1, 2")));
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(DetailBatch.parseIds(" a\nb\t c,,")));
+        // Duplicates are ignored
+        assertEquals(Arrays.asList("1", "2"), new ArrayList<>(DetailBatch.parseIds("1,2,1")));
+    }
+
+    @Test
+    public void testParseMaxIds() {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < DetailBatch.MAX_IDS; i++) {
+            ids.append(i).append(',');
+        }
+        assertEquals(DetailBatch.MAX_IDS, DetailBatch.parseIds(ids.toString()).size());
+        // Duplicates do not count
+        assertEquals(DetailBatch.MAX_IDS, DetailBatch.parseIds(ids.toString() + "0").size());
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void testParseTooManyIds() {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i <= DetailBatch.MAX_IDS; i++) {
+            ids.append(i).append(' ');
+        }
+        DetailBatch.parseIds(ids.toString());
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void testParseNull() {
+        DetailBatch.parseIds(null);
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void testParseNoIds() {
+        DetailBatch.parseIds(" , ,");
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        StringWriter out = new StringWriter();
+        DetailBatch batch = new DetailBatch(out);
+        batch.write("{\"id\":\"1\"}");
+        batch.missing("2");
+        batch.write("{\"id\":\"3\"}");
+        batch.missing("x\"y");
+        batch.end();
+        assertEquals("{\"data\":[{\"id\":\"1\"},{\"id\":\"3\"}],\"missing\":[\"2\",\"x\\\"y\"],\"total\":2}", out.toString());
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DurationHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        DurationHistogram histogram = new DurationHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtQuantile(0.99));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 0; i < DurationHistogram.SUB_BUCKETS; i++) {
+            histogram.record(i);
+        }
+        assertEquals(DurationHistogram.SUB_BUCKETS, histogram.getCount());
+        assertEquals(DurationHistogram.SUB_BUCKETS - 1, histogram.getMax());
+        assertEquals(15, histogram.getValueAtQuantile(0.5));
+        assertEquals(0, histogram.getValueAtQuantile(0));
+        assertEquals(DurationHistogram.SUB_BUCKETS - 1, histogram.getValueAtQuantile(1));
+    }
+
+    @Test
+    public void testRelativeError() {
+        for (long value = 0; value < 1L << 40; value = value * 3 / 2 + 1) {
+            int index = DurationHistogram.index(value);
+            long highest = DurationHistogram.highestEquivalentValue(index);
+            assertTrue(value + " > " + highest, highest >= value);
+            assertEquals(index, DurationHistogram.index(highest));
+            assertEquals(index + 1, DurationHistogram.index(highest + 1));
+            assertTrue(value + " ~ " + highest, highest - value <= value / DurationHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void testQuantiles() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertApproximately(500000, histogram.getValueAtQuantile(0.5));
+        assertApproximately(990000, histogram.getValueAtQuantile(0.99));
+        // Never greater than the max
+        assertEquals(1000000, histogram.getValueAtQuantile(1));
+    }
+
+    @Test
+    public void testNegativeValue() {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.record(-10);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void testAdd() {
+        DurationHistogram small = new DurationHistogram();
+        small.record(1);
+        small.record(2);
+        DurationHistogram large = new DurationHistogram();
+        large.record(1000000);
+        small.add(large);
+        assertEquals(3, small.getCount());
+        assertEquals(1000000, small.getMax());
+        assertEquals(1000000, small.getValueAtQuantile(1));
+        // The other histogram is not modified
+        assertEquals(1, large.getCount());
+    }
+
+    private static void assertApproximately(long expected, long actual) {
+        assertTrue(expected + " ~ " + actual, actual >= expected && actual - expected <= expected / DurationHistogram.SUB_BUCKETS);
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.TIMESTAMP;
+import static org.jboss.weld.probe.Strings.TOTAL;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class EventTimelineTest {
+
+    private static final String EVENTS = "[{ts:1500,type:'A',kind:'APPLICATION',qualifiers:['@Q']},{ts:1700,type:'A',kind:'APPLICATION'},"
+            + "{ts:3200,type:'A',kind:'CONTAINER'},{ts:3900,type:'B',kind:'APPLICATION',qualifiers:['@Q','@R']},{type:'C'}]";
+
+    @Test
+    public void testGroupByType() {
+        EventTimeline timeline = EventTimeline.of(new JsonParser().parse(EVENTS).getAsJsonArray());
+        // The event without a timestamp is ignored
+        assertEquals(4, timeline.size());
+        JsonObject result = parse(timeline.toJson(EventTimeline.GroupBy.TYPE, 1000));
+        assertEquals("type", result.get(EventTimeline.GROUP_BY).getAsString());
+        assertEquals(4, result.get(TOTAL).getAsInt());
+        assertEquals(1000, result.get(EventTimeline.INTERVAL).getAsLong());
+        // Aligned to the interval
+        assertEquals(1000, result.get(EventTimeline.START).getAsLong());
+        assertEquals(4000, result.get(EventTimeline.END).getAsLong());
+        JsonArray data = result.get(DATA).getAsJsonArray();
+        assertEquals(2, data.size());
+        // Sorted by total in descending order
+        JsonObject a = data.get(0).getAsJsonObject();
+        assertEquals("A", a.get(EventTimeline.KEY).getAsString());
+        assertEquals(3, a.get(TOTAL).getAsInt());
+        // Empty buckets are omitted
+        JsonArray buckets = a.get(DATA).getAsJsonArray();
+        assertEquals(2, buckets.size());
+        assertBucket(buckets.get(0).getAsJsonObject(), 1000, 2, 2.0);
+        assertBucket(buckets.get(1).getAsJsonObject(), 3000, 1, 1.0);
+        assertEquals(2.0, a.get(EventTimeline.PEAK_RATE).getAsDouble(), 0.001);
+        assertEquals(1000, a.get(EventTimeline.PEAK_TS).getAsLong());
+        assertEquals("B", data.get(1).getAsJsonObject().get(EventTimeline.KEY).getAsString());
+    }
+
+    @Test
+    public void testGroupByQualifiersAndKind() {
+        EventTimeline timeline = EventTimeline.of(new JsonParser().parse(EVENTS).getAsJsonArray());
+        JsonArray byQualifiers = parse(timeline.toJson(EventTimeline.GroupBy.QUALIFIERS, 10000)).get(DATA).getAsJsonArray();
+        assertEquals(3, byQualifiers.size());
+        assertEquals("@Default", byQualifiers.get(0).getAsJsonObject().get(EventTimeline.KEY).getAsString());
+        assertEquals(2, byQualifiers.get(0).getAsJsonObject().get(TOTAL).getAsInt());
+        JsonArray byKind = parse(timeline.toJson(EventTimeline.GroupBy.KIND, 10000)).get(DATA).getAsJsonArray();
+        assertEquals("APPLICATION", byKind.get(0).getAsJsonObject().get(EventTimeline.KEY).getAsString());
+        assertEquals(3, byKind.get(0).getAsJsonObject().get(TOTAL).getAsInt());
+    }
+
+    @Test
+    public void testDefaultInterval() {
+        EventTimeline timeline = EventTimeline.of(new JsonParser().parse(EVENTS).getAsJsonArray());
+        assertEquals(1000, parse(timeline.toJson(EventTimeline.GroupBy.TYPE, 0)).get(EventTimeline.INTERVAL).getAsLong());
+        timeline.add(event(1500 + 3600000, "A"));
+        // One hour results in more than 200 ten-second buckets but at most 200 thirty-second buckets
+        assertEquals(30000, parse(timeline.toJson(EventTimeline.GroupBy.TYPE, 0)).get(EventTimeline.INTERVAL).getAsLong());
+    }
+
+    @Test
+    public void testEmpty() {
+        JsonObject result = parse(new EventTimeline().toJson(EventTimeline.GroupBy.TYPE, 0));
+        assertEquals(0, result.get(TOTAL).getAsInt());
+        assertEquals(0, result.get(DATA).getAsJsonArray().size());
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void testTooManyBuckets() {
+        EventTimeline timeline = new EventTimeline();
+        timeline.add(event(0, "A"));
+        timeline.add(event(EventTimeline.MAX_BUCKETS * 10, "A"));
+        timeline.toJson(EventTimeline.GroupBy.TYPE, 1);
+    }
+
+    @Test
+    public void testEvictBefore() {
+        EventTimeline timeline = new EventTimeline();
+        // Enough events to grow and compact the arrays
+        for (int i = 0; i < 1000; i++) {
+            timeline.add(event(i, i % 2 == 0 ? "A" : "B"));
+            if (i % 100 == 99) {
+                timeline.evictBefore(i - 49);
+            }
+        }
+        assertEquals(50, timeline.size());
+        assertEquals(0, timeline.evictBefore(0));
+        JsonObject result = parse(timeline.toJson(EventTimeline.GroupBy.TYPE, 1000));
+        assertEquals(50, result.get(TOTAL).getAsInt());
+        assertEquals(25, result.get(DATA).getAsJsonArray().get(0).getAsJsonObject().get(TOTAL).getAsInt());
+        assertEquals(50, timeline.evictBefore(Long.MAX_VALUE));
+        assertEquals(0, timeline.size());
+    }
+
+    @Test
+    public void testGroupByFrom() {
+        assertEquals(EventTimeline.GroupBy.TYPE, EventTimeline.GroupBy.from(null));
+        assertEquals(EventTimeline.GroupBy.TYPE, EventTimeline.GroupBy.from(""));
+        assertEquals(EventTimeline.GroupBy.QUALIFIERS, EventTimeline.GroupBy.from("Qualifiers"));
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void testGroupByFromInvalid() {
+        EventTimeline.GroupBy.from("foo");
+    }
+
+    private static JsonObject event(long timestamp, String type) {
+        JsonObject event = new JsonObject();
+        event.addProperty(TIMESTAMP, timestamp);
+        event.addProperty(Strings.TYPE, type);
+        return event;
+    }
+
+    private static JsonObject parse(String json) {
+        return new JsonParser().parse(json).getAsJsonObject();
+    }
+
+    private static void assertBucket(JsonObject bucket, long timestamp, int count, double rate) {
+        assertEquals(timestamp, bucket.get(TIMESTAMP).getAsLong());
+        assertEquals(count, bucket.get(EventTimeline.COUNT).getAsInt());
+        assertEquals(rate, bucket.get(EventTimeline.RATE).getAsDouble(), 0.001);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+
+public class FoldedStacksTest {
+
+    @Test
+    public void testSelfTime() throws IOException {
+        StringBuilder out = new StringBuilder();
+        FoldedStacks.write(new JsonParser().parse("{declaringClass:'org.A',methodName:'a',time:10,children:["
+                + "{declaringClass:'org.B',methodName:'b',time:4,children:[{declaringClass:'org.C',methodName:'c',time:1}]},"
+                + "{interceptedBean:{beanClass:'org.D'},methodName:'d',time:6}]}").getAsJsonObject(), out);
+        // The root has zero self time
+        assertEquals("org.A.a;org.B.b;org.C.c 1\norg.A.a;org.B.b 3\norg.A.a;org.D.d 6\n", out.toString());
+    }
+
+    @Test
+    public void testSpecialCharacters() throws IOException {
+        StringBuilder out = new StringBuilder();
+        FoldedStacks.write(new JsonParser().parse("{declaringClass:'org.A',methodName:'a b;c',time:2}").getAsJsonObject(), out);
+        assertEquals("org.A.a_b_c 2\n", out.toString());
+    }
+
+    @Test
+    public void testMissingMembers() throws IOException {
+        StringBuilder out = new StringBuilder();
+        FoldedStacks.write(new JsonParser().parse("{methodName:'a'}").getAsJsonObject(), out);
+        assertEquals("", out.toString());
+        FoldedStacks.write(new JsonParser().parse("{time:3}").getAsJsonObject(), out);
+        assertEquals(". 3\n", out.toString());
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.BEAN_CLASS;
+import static org.jboss.weld.probe.Strings.DATA;
+import static org.jboss.weld.probe.Strings.METHOD_NAME;
+import static org.jboss.weld.probe.Strings.TOTAL;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class InvocationStatsTest {
+
+    // The children of the second tree take longer than the parent due to rounding
+    private static final String INVOCATIONS = "[{declaringClass:'org.A',methodName:'a',time:10,children:["
+            + "{declaringClass:'org.B',methodName:'b',time:4},{declaringClass:'org.B',methodName:'b',time:2}]},"
+            + "{declaringClass:'org.A',methodName:'a',time:3,children:[{interceptedBean:{beanClass:'org.B'},methodName:'b',time:5}]}]";
+
+    @Test
+    public void testAggregation() {
+        InvocationStats stats = InvocationStats.of(new JsonParser().parse(INVOCATIONS).getAsJsonArray());
+        assertEquals(2, stats.getTrees());
+        JsonObject result = parse(stats.toJson(InvocationStats.Sort.COUNT, 10));
+        assertEquals(2, result.get(TOTAL).getAsInt());
+        JsonArray data = result.get(DATA).getAsJsonArray();
+        JsonObject b = data.get(0).getAsJsonObject();
+        assertEquals("org.B", b.get(BEAN_CLASS).getAsString());
+        assertEquals("b", b.get(METHOD_NAME).getAsString());
+        assertEquals(3, b.get(InvocationStats.COUNT).getAsLong());
+        assertEquals(11, b.get(InvocationStats.TOTAL_TIME).getAsLong());
+        assertEquals(11, b.get(InvocationStats.SELF_TIME).getAsLong());
+        assertEquals(5, b.get(InvocationStats.MAX).getAsLong());
+        assertEquals(4, b.get("p50").getAsLong());
+        JsonObject a = data.get(1).getAsJsonObject();
+        assertEquals(2, a.get(InvocationStats.COUNT).getAsLong());
+        assertEquals(13, a.get(InvocationStats.TOTAL_TIME).getAsLong());
+        // The self time is never negative
+        assertEquals(4, a.get(InvocationStats.SELF_TIME).getAsLong());
+    }
+
+    @Test
+    public void testIncremental() {
+        JsonArray invocations = new JsonParser().parse(INVOCATIONS).getAsJsonArray();
+        InvocationStats stats = new InvocationStats();
+        stats.add(invocations.get(0).getAsJsonObject());
+        stats.add(invocations.get(1).getAsJsonObject());
+        assertEquals(InvocationStats.of(invocations).toJson(InvocationStats.Sort.SELF_TIME, 10), stats.toJson(InvocationStats.Sort.SELF_TIME, 10));
+    }
+
+    @Test
+    public void testSortAndLimit() {
+        InvocationStats stats = InvocationStats.of(new JsonParser().parse(INVOCATIONS).getAsJsonArray());
+        JsonObject result = parse(stats.toJson(InvocationStats.Sort.TOTAL_TIME, 1));
+        // The total is not limited
+        assertEquals(2, result.get(TOTAL).getAsInt());
+        assertEquals(1, result.get(DATA).getAsJsonArray().size());
+        assertEquals("org.A", result.get(DATA).getAsJsonArray().get(0).getAsJsonObject().get(BEAN_CLASS).getAsString());
+        assertEquals(0, parse(stats.toJson(InvocationStats.Sort.MAX, 0)).get(DATA).getAsJsonArray().size());
+    }
+
+    @Test
+    public void testSortFrom() {
+        assertEquals(InvocationStats.Sort.SELF_TIME, InvocationStats.Sort.from(null));
+        assertEquals(InvocationStats.Sort.SELF_TIME, InvocationStats.Sort.from(""));
+        assertEquals(InvocationStats.Sort.TOTAL_TIME, InvocationStats.Sort.from("totaltime"));
+        assertEquals(InvocationStats.Sort.P99, InvocationStats.Sort.from("p99"));
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void testSortFromInvalid() {
+        InvocationStats.Sort.from("foo");
+    }
+
+    private static JsonObject parse(String json) {
+        return new JsonParser().parse(json).getAsJsonObject();
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * The field sets correspond to the output of Probe 2.4.
+ */
+public class JsonProjectionTest {
+
+    @Test
+    public void testBeans() {
+        Set<String> simple = fields("id", "kind", "beanClass", "bdaId", "declaringBean", "dependencies", "dependents");
+        assertEquals(simple, JsonProjection.forBeans("simple", null));
+        assertEquals(simple, JsonProjection.forBeans("SIMPLE", ""));
+        Set<String> basic = fields("id", "kind", "beanClass", "bdaId", "scope", "types", "qualifiers", "isAlternative", "unused");
+        assertEquals(basic, JsonProjection.forBeans(null, null));
+        assertEquals(basic, JsonProjection.forBeans("basic", null));
+        assertNull(JsonProjection.forBeans("full", null));
+    }
+
+    @Test
+    public void testObservers() {
+        Set<String> basic = fields("id", "beanClass", "observedType", "reception", "txPhase", "qualifiers", "declaringBean", "description");
+        assertEquals(basic, JsonProjection.forObservers(null, null));
+        assertEquals(basic, JsonProjection.forObservers("basic", null));
+        // There is no simple representation of observers
+        assertEquals(basic, JsonProjection.forObservers("simple", null));
+        assertNull(JsonProjection.forObservers("full", null));
+    }
+
+    @Test
+    public void testInvocations() {
+        Set<String> basic = fields("id", "interceptedBean", "declaringClass", "description", "methodName", "start", "time");
+        assertEquals(basic, JsonProjection.forInvocations(null, null));
+        assertEquals(basic, JsonProjection.forInvocations("basic", null));
+        assertNull(JsonProjection.forInvocations("full", null));
+    }
+
+    @Test
+    public void testExplicitFields() {
+        assertEquals(fields("id", "beanClass"), JsonProjection.forBeans("full", " id, beanClass,"));
+        assertEquals(fields("id"), JsonProjection.forObservers(null, "id"));
+        assertEquals(fields("time"), JsonProjection.forInvocations("full", "time"));
+        assertNull(JsonProjection.parseFields(" "));
+    }
+
+    @Test
+    public void testProject() {
+        JsonObject object = new JsonParser().parse("{id:'1',kind:'MANAGED',dependencies:[{id:'2'}]}").getAsJsonObject();
+        assertSame(object, JsonProjection.project(object, null));
+        JsonObject projected = JsonProjection.project(object, fields("id", "dependencies", "foo"));
+        assertEquals(2, projected.entrySet().size());
+        // The values are shared
+        assertSame(object.get("dependencies"), projected.get("dependencies"));
+        assertEquals("{\"total\":1,\"data\":[{\"id\":\"1\"}]}",
+                JsonProjection.projectPage("{\"total\":1,\"data\":[" + object + "]}", fields("id")));
+    }
+
+    @Test
+    public void testProjectSimpleBean() {
+        JsonObject bean = new JsonParser()
+                .parse("{id:'1',kind:'MANAGED',scope:'@Dependent',dependencies:[{id:'2',requiredType:'B',dependencies:[{id:'3'}]}],"
+                        + "dependents:[{id:'4',dependents:[{id:'5'}]}]}")
+                .getAsJsonObject();
+        JsonObject simple = JsonProjection.projectBean(bean, JsonProjection.forBeans("simple", null));
+        assertEquals(fields("id", "kind", "dependencies", "dependents"), keys(simple));
+        JsonObject dependency = simple.get("dependencies").getAsJsonArray().get(0).getAsJsonObject();
+        assertEquals(fields("id", "requiredType"), keys(dependency));
+        JsonObject dependent = simple.get("dependents").getAsJsonArray().get(0).getAsJsonObject();
+        assertEquals(fields("id"), keys(dependent));
+        // The original bean is not modified
+        assertEquals(1, bean.get("dependencies").getAsJsonArray().get(0).getAsJsonObject().get("dependencies").getAsJsonArray().size());
+        // Other representations are not affected
+        assertSame(bean, JsonProjection.projectBean(bean, JsonProjection.forBeans("full", null)));
+        assertSame(bean.get("dependencies"), JsonProjection.projectBean(bean, JsonProjection.forBeans(null, "id,dependencies")).get("dependencies"));
+    }
+
+    private static Set<String> fields(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    private static Set<String> keys(JsonObject object) {
+        Set<String> keys = new HashSet<>();
+        for (Entry<String, JsonElement> entry : object.entrySet()) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class PrefetchingJsonDataProviderTest {
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    private PrefetchingJsonDataProvider provider;
+
+    @After
+    public void close() {
+        if (provider != null) {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void testNextPageAndDetails() throws InterruptedException {
+        provider = new PrefetchingJsonDataProvider(remote(), 1000, 2, PrefetchingJsonDataProvider.DEFAULT_TTL);
+        provider.receiveBeans(1, 3, null, null);
+        awaitPrefetches(2);
+        // The next page and the first bean were prefetched
+        assertEquals(1, calls("receiveBeans", 2));
+        assertEquals(1, calls("receiveBean", "a"));
+        assertEquals(0, calls("receiveBean", "b"));
+        provider.receiveBeans(2, 3, null, null);
+        assertEquals(1, calls("receiveBeans", 2));
+        provider.receiveBean("a", true, true);
+        assertEquals(1, calls("receiveBean", "a"));
+        provider.receiveBean("b", true, true);
+        assertEquals(1, calls("receiveBean", "b"));
+        // A prefetched result is only used once
+        provider.receiveBean("a", true, true);
+        assertEquals(2, calls("receiveBean", "a"));
+    }
+
+    @Test
+    public void testBudget() throws InterruptedException {
+        provider = new PrefetchingJsonDataProvider(remote(), 1000, 0, PrefetchingJsonDataProvider.DEFAULT_TTL);
+        provider.receiveBeans(1, 3, null, null);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(0, provider.getPrefetches());
+        assertEquals(0, calls("receiveBeans", 2));
+    }
+
+    @Test
+    public void testNoPaging() throws InterruptedException {
+        provider = new PrefetchingJsonDataProvider(remote(), 1000, 10, PrefetchingJsonDataProvider.DEFAULT_TTL);
+        provider.receiveBeans(0, 0, null, null);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(0, provider.getPrefetches());
+    }
+
+    @Test
+    public void testExpired() throws InterruptedException {
+        provider = new PrefetchingJsonDataProvider(remote(), 1000, 1, 0);
+        provider.receiveObservers(1, 3, null, null);
+        awaitPrefetches(1);
+        TimeUnit.MILLISECONDS.sleep(10);
+        provider.receiveObservers(2, 3, null, null);
+        assertEquals(2, calls("receiveObservers", 2));
+    }
+
+    private void awaitPrefetches(long expected) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (provider.getPrefetches() < expected) {
+            assertTrue("Prefetches not completed: " + provider.getPrefetches(), System.currentTimeMillis() < timeout);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(expected, provider.getPrefetches());
+    }
+
+    private int calls(String method, Object firstArg) {
+        AtomicInteger count = calls.get(method + ":" + firstArg);
+        return count != null ? count.get() : 0;
+    }
+
+    private JsonDataProvider remote() {
+        return (JsonDataProvider) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { JsonDataProvider.class }, (proxy, method, args) -> {
+            calls.computeIfAbsent(method.getName() + ":" + (args != null ? args[0] : null), key -> new AtomicInteger()).incrementAndGet();
+            if (method.getName().startsWith("receive") && method.getParameterCount() == 4) {
+                // A page of three items out of nine
+                int page = (int) args[0];
+                return "{\"page\":" + page + ",\"lastPage\":3,\"total\":9,\"data\":[{\"id\":\"a\"},{\"id\":\"b\"},{\"id\":\"c\"}]}";
+            }
+            return "{\"id\":\"" + (args != null ? args[0] : "") + "\"}";
+        });
+    }
+
+}
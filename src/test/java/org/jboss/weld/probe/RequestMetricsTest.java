@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RequestMetricsTest {
+
+    @Test
+    public void testPrometheusText() {
+        RequestMetrics metrics = new RequestMetrics();
+        RequestMetrics.Request request = metrics.start("BEANS");
+        metrics.remoteCall("receiveBeans", TimeUnit.MILLISECONDS.toNanos(2), false);
+        RequestMetrics.cacheHit(RequestMetrics.Cache.PREFETCH);
+        RequestMetrics.cacheMiss(RequestMetrics.Cache.PREFETCH);
+        request.end(200, 100);
+        metrics.start("BEAN").end(404, 0);
+        // A background call is not attributed to any resource
+        metrics.remoteCall("receiveBean", TimeUnit.MILLISECONDS.toNanos(20), true);
+        RequestMetrics.cacheHit(RequestMetrics.Cache.PREFETCH);
+
+        List<String> lines = Arrays.asList(metrics.toPrometheusText().split("\n"));
+        assertTrue(lines.contains("# TYPE weld_probe_requests_seconds histogram"));
+        assertTrue(lines.contains("weld_probe_requests_seconds_count{resource=\"beans\"} 1"));
+        assertTrue(lines.contains("weld_probe_requests_seconds_bucket{resource=\"bean\",le=\"+Inf\"} 1"));
+        assertTrue(lines.contains("weld_probe_request_errors_total{resource=\"bean\"} 1"));
+        assertTrue(lines.contains("weld_probe_request_errors_total{resource=\"beans\"} 0"));
+        assertTrue(lines.contains("weld_probe_response_bytes_total{resource=\"beans\"} 100"));
+        assertTrue(lines.contains("weld_probe_request_remote_calls_total{resource=\"beans\"} 1"));
+        assertTrue(lines.contains("weld_probe_request_remote_calls_total{resource=\"bean\"} 0"));
+        assertTrue(lines.contains("weld_probe_request_remote_seconds_total{resource=\"beans\"} 0.002"));
+        // The cache samples are only written for the caches used by a resource
+        assertTrue(lines.contains("weld_probe_cache_hits_total{resource=\"beans\",cache=\"prefetch\"} 1"));
+        assertTrue(lines.contains("weld_probe_cache_misses_total{resource=\"beans\",cache=\"prefetch\"} 1"));
+        assertFalse(lines.stream().anyMatch(line -> line.startsWith("weld_probe_cache_hits_total{resource=\"bean\"")));
+        assertFalse(lines.stream().anyMatch(line -> line.contains("cache=\"exports\"")));
+
+        assertTrue(lines.contains("weld_probe_remote_call_seconds_bucket{method=\"receiveBeans\",le=\"0.001\"} 0"));
+        assertTrue(lines.contains("weld_probe_remote_call_seconds_bucket{method=\"receiveBeans\",le=\"0.0025\"} 1"));
+        assertTrue(lines.contains("weld_probe_remote_call_seconds_bucket{method=\"receiveBean\",le=\"0.01\"} 0"));
+        assertTrue(lines.contains("weld_probe_remote_call_seconds_bucket{method=\"receiveBean\",le=\"0.025\"} 1"));
+        assertTrue(lines.contains("weld_probe_remote_call_seconds_sum{method=\"receiveBean\"} 0.02"));
+        assertTrue(lines.contains("weld_probe_remote_call_errors_total{method=\"receiveBean\"} 1"));
+        assertTrue(lines.contains("weld_probe_remote_call_errors_total{method=\"receiveBeans\"} 0"));
+        assertTrue(lines.contains("weld_probe_prefetches_total 0"));
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        RequestMetrics metrics = new RequestMetrics();
+        for (long millis : new long[] { 1, 3, 30, 300, 3000, 30000 }) {
+            metrics.remoteCall("receiveBeans", TimeUnit.MILLISECONDS.toNanos(millis), false);
+        }
+        List<Long> counts = new ArrayList<>();
+        List<String> bounds = new ArrayList<>();
+        for (String line : metrics.toPrometheusText().split("\n")) {
+            if (line.startsWith("weld_probe_remote_call_seconds_bucket{method=\"receiveBeans\"")) {
+                bounds.add(line.substring(line.indexOf("le=\"") + 4, line.indexOf("\"}")));
+                counts.add(Long.valueOf(line.substring(line.lastIndexOf(' ') + 1)));
+            } else if (line.startsWith("weld_probe_remote_call_seconds_count{method=\"receiveBeans\"}")) {
+                assertEquals("6", line.substring(line.lastIndexOf(' ') + 1));
+            }
+        }
+        assertEquals(Arrays.asList("0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25", "0.5", "1.0", "2.5", "5.0", "10.0", "+Inf"), bounds);
+        // The buckets are cumulative
+        assertEquals(Arrays.asList(1L, 1L, 2L, 2L, 2L, 3L, 3L, 3L, 4L, 4L, 4L, 5L, 5L, 6L), counts);
+    }
+
+    @Test
+    public void testResourceStats() {
+        RequestMetrics metrics = new RequestMetrics();
+        RequestMetrics.Request request = metrics.start("INVOCATIONS");
+        request.failed();
+        RequestMetrics.cacheMiss(RequestMetrics.Cache.EXPORTS);
+        request.end(200, 10);
+        assertEquals(1, metrics.getResources().size());
+        assertEquals("invocations", metrics.getResources().get(0).getResource());
+        // A failed request is an error even with a successful response status
+        assertEquals(1, metrics.getResources().get(0).getRequests().getErrors());
+        assertEquals(1, metrics.getResources().get(0).getCacheMisses());
+        // No request in progress
+        RequestMetrics.cacheHit(RequestMetrics.Cache.EXPORTS);
+        assertEquals(0, metrics.getResources().get(0).getCacheHits());
+    }
+
+}
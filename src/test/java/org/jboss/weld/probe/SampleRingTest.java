@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.jboss.weld.probe.Strings.TIMESTAMP;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+public class SampleRingTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new SampleRing(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCapacity() {
+        new SampleRing(-1);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, new SampleRing(10).downsample(0, 10).size());
+    }
+
+    @Test
+    public void testOldestSampleOverwritten() {
+        SampleRing ring = new SampleRing(3);
+        for (int i = 1; i <= 4; i++) {
+            ring.add(i, i * 10);
+        }
+        assertEquals(3, ring.size());
+        JsonArray data = ring.downsample(0, 10);
+        assertEquals(3, data.size());
+        assertPoint(data.get(0).getAsJsonObject(), 2, 20, 20, 20);
+        assertPoint(data.get(2).getAsJsonObject(), 4, 40, 40, 40);
+    }
+
+    @Test
+    public void testCapacityOfOne() {
+        SampleRing ring = new SampleRing(1);
+        ring.add(1, 10);
+        ring.add(2, 20);
+        assertEquals(1, ring.size());
+        assertPoint(ring.downsample(0, 10).get(0).getAsJsonObject(), 2, 20, 20, 20);
+    }
+
+    @Test
+    public void testSince() {
+        SampleRing ring = new SampleRing(10);
+        for (int i = 0; i < 10; i++) {
+            ring.add(i * 1000, i);
+        }
+        JsonArray data = ring.downsample(7000, 100);
+        assertEquals(3, data.size());
+        assertEquals(7000, data.get(0).getAsJsonObject().get(TIMESTAMP).getAsLong());
+        assertEquals(0, ring.downsample(10000, 100).size());
+    }
+
+    @Test
+    public void testDownsample() {
+        SampleRing ring = new SampleRing(10);
+        for (int i = 0; i < 10; i++) {
+            ring.add(i, i);
+        }
+        JsonArray data = ring.downsample(0, 2);
+        assertEquals(2, data.size());
+        assertPoint(data.get(0).getAsJsonObject(), 0, 0, 4, 2.0);
+        assertPoint(data.get(1).getAsJsonObject(), 5, 5, 9, 7.0);
+    }
+
+    private static void assertPoint(JsonObject point, long timestamp, long min, long max, double avg) {
+        assertEquals(timestamp, point.get(TIMESTAMP).getAsLong());
+        assertEquals(min, point.get(SampleRing.MIN).getAsLong());
+        assertEquals(max, point.get(SampleRing.MAX).getAsLong());
+        assertEquals(avg, point.get(SampleRing.AVG).getAsDouble(), 0.001);
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2016, Red Hat, Inc., and individual contributors
+ * by the @authors tag. See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.weld.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+
+public class StringPoolTest {
+
+    private static final String DATA = "{\"total\":2,\"data\":[{\"id\":\"1\",\"beanClass\":\"org.Foo\",\"types\":[\"org.Foo\",\"java.lang.Object\"],"
+            + "\"scope\":\"@Dependent\",\"isAlternative\":false,\"instance\":null,\"time\":1476000004900,\"ratio\":1.5,\"delta\":-3,\"big\":1e3},"
+            + "{\"id\":\"2\",\"beanClass\":\"org.Foo\",\"types\":[\"java.lang.Object\"],\"scope\":\"@Dependent\",\"name\":\"org.Foo\"}]}";
+
+    @Test
+    public void testParseIsEquivalentToJsonParser() throws IOException {
+        JsonElement expected = new JsonParser().parse(DATA);
+        JsonElement parsed = new StringPool().parse(new StringReader(DATA));
+        assertEquals(expected, parsed);
+        // Numbers are serialized exactly the same way
+        assertEquals(expected.toString(), parsed.toString());
+        JsonObject bean = parsed.getAsJsonObject().get("data").getAsJsonArray().get(0).getAsJsonObject();
+        assertEquals(1476000004900L, bean.get("time").getAsLong());
+        assertEquals(1.5, bean.get("ratio").getAsDouble(), 0);
+        assertEquals(-3, bean.get("delta").getAsInt());
+        assertEquals(1000, bean.get("big").getAsInt());
+    }
+
+    @Test
+    public void testDeduplication() throws IOException {
+        StringPool pool = new StringPool();
+        JsonArray data = pool.parse(new StringReader(DATA)).getAsJsonObject().get("data").getAsJsonArray();
+        JsonObject first = data.get(0).getAsJsonObject();
+        JsonObject second = data.get(1).getAsJsonObject();
+        String beanClass = first.get("beanClass").getAsString();
+        assertSame(beanClass, second.get("beanClass").getAsString());
+        // Array elements of a pooled member are pooled too
+        assertSame(beanClass, first.get("types").getAsJsonArray().get(0).getAsString());
+        assertSame(first.get("types").getAsJsonArray().get(1).getAsString(), second.get("types").getAsJsonArray().get(0).getAsString());
+        assertSame(first.get("scope").getAsString(), second.get("scope").getAsString());
+        // Values of other members are not pooled
+        assertNotSame(beanClass, second.get("name").getAsString());
+        assertEquals(beanClass, second.get("name").getAsString());
+        assertTrue(pool.getDuplicates() > 0);
+    }
+
+    @Test
+    public void testIntern() {
+        StringPool pool = new StringPool();
+        String value = new String("org.Foo");
+        assertSame(value, pool.intern(value));
+        assertSame(value, pool.intern(new String("org.Foo")));
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.getDuplicates());
+        // Header, char array header and chars aligned to 8 bytes
+        assertEquals(24 + 32, pool.getSavedBytes());
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void testTrailingData() throws IOException {
+        new StringPool().parse(new StringReader("{} {}"));
+    }
+
+}